@@ -0,0 +1,12 @@
+#!/usr/bin/env bash
+# Runs the same synthetic traffic (same seed) against the platform thread pool and the
+# virtual-thread-per-task executor and prints both reports. Extra arguments are passed
+# to the driver, e.g.: loadtest/compare-execution-models.sh --requests=1000 --rate=20
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+for mode in platform virtual; do
+    echo "### async.mode=${mode}"
+    ./mvnw -q -Ploadtest verify -Dloadtest.args="--async.mode=${mode} $*" | sed -n '/=== Load test report ===/,$p'
+done
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Runs the same synthetic traffic (same seed) with a plain FIFO conversion queue and with
+# the cost-ordered queue plus fast lane, and prints both reports. A share of the videos are
+# long mixes whose download takes proportionally longer, so short requests queue behind them.
+# Extra arguments are passed to the driver, e.g.: loadtest/compare-queue-policies.sh --rate=10
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+export FAKE_LONG_PERCENT=${FAKE_LONG_PERCENT:-10}
+export FAKE_DOWNLOAD_MS_PER_MINUTE=${FAKE_DOWNLOAD_MS_PER_MINUTE:-200}
+
+echo "### fifo"
+./mvnw -q -Ploadtest verify \
+    -Dloadtest.args="--async.fast-lane-workers=0 --async.aging-millis-per-audio-minute=0 $*" \
+    | sed -n '/=== Load test report ===/,$p'
+
+echo "### priority"
+./mvnw -q -Ploadtest verify -Dloadtest.args="$*" | sed -n '/=== Load test report ===/,$p'
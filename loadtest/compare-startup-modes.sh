@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Builds the production jar (Spring AOT + CDS training run) and compares the time to the
+# first handled update for a plain classpath launch and for the production launch.
+# Extra arguments are passed to the benchmark, e.g.: loadtest/compare-startup-modes.sh --runs=10
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+./mvnw -q -Pproduction -DskipTests package
+app_dir=target/application
+jar=$(ls "${app_dir}"/*.jar)
+
+run() {
+    echo "### $1"
+    shift
+    ./mvnw -q -Ploadtest verify \
+        -Dloadtest.main=com.LastCoderBoy.telegram_youtube_bot.loadtest.StartupBenchmark \
+        -Dloadtest.args="$*" | sed -n '/=== Startup report ===/,$p'
+}
+
+run "classpath" "$@"
+run "jar" --jar="${jar}" "$@"
+run "jar + AOT + CDS" --jar="${jar}" \
+    --jvm-args="-XX:SharedArchiveFile=${app_dir}/application.jsa,-Dspring.aot.enabled=true" "$@"
@@ -0,0 +1,41 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process spawn and output drain overhead, independent of what yt-dlp/FFmpeg actually do.
+ * {@code lines = 0} measures the bare fork/exec/wait cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandExecutorBenchmark {
+
+    @Param({"0", "1000", "100000"})
+    public int lines;
+
+    private final CommandExecutor commandExecutor = new CommandExecutor();
+
+    @Benchmark
+    public CommandExecutor.ProcessResult spawnAndDrain() throws Exception {
+        if (lines == 0) {
+            return commandExecutor.execute("true");
+        }
+        return commandExecutor.execute("seq", "1", String.valueOf(lines));
+    }
+}
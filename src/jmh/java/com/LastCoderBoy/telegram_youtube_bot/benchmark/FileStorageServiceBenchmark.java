@@ -0,0 +1,40 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import com.LastCoderBoy.telegram_youtube_bot.service.storage.FileStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileStorageServiceBenchmark {
+
+    @Param({
+            "Rick Astley - Never Gonna Give You Up (Official Music Video)",
+            "Лучшие песни 2024 | 2 часа музыки 🎵🔥 [Full Album] {Remastered}",
+            "Lofi hip hop radio - beats to relax/study to | 24/7 live | chill vibes | best of the year mix compilation for late night coding sessions and focus, extended edition with bonus tracks and rare b-sides from the archive"
+    })
+    public String title;
+
+    private final FileStorageService fileStorageService = new FileStorageService(new FileStorageProperties(), new SimpleMeterRegistry());
+
+    @Benchmark
+    public String sanitizeFileName() {
+        return fileStorageService.sanitizeFileName(title);
+    }
+}
@@ -0,0 +1,137 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.LastCoderBoy.telegram_youtube_bot.util.LogSampler;
+import com.LastCoderBoy.telegram_youtube_bot.util.TaskContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost paid by one conversion request on its own threads: the lines a task logs
+ * from the update to the upload, plus 500 lines of yt-dlp progress, encoded as JSON like
+ * logback-spring.xml does. Output goes to a null stream, so the sync case is the encoder
+ * cost and the async case what is left on the request thread. Once the async queue fills,
+ * DEBUG/INFO events are dropped instead of waited for, which is the bound being measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    private static final int PROCESS_OUTPUT_LINES = 500;
+    private static final String PROGRESS_LINE = "[download]  42.0% of    3.81MiB at    1.21MiB/s ETA 00:02";
+
+    @Param({"async", "sync"})
+    public String appender;
+
+    @Param({"INFO", "DEBUG"})
+    public String level;
+
+    @Param({"true", "false"})
+    public boolean sampleProcessOutput;
+
+    private LoggerContext context;
+    private Logger log;
+    private long requests;
+
+    @Setup
+    public void setUp() {
+        context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("logstash");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(encoder);
+        sink.setOutputStream(OutputStream.nullOutputStream());
+        sink.start();
+
+        Appender<ILoggingEvent> target = sink;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setDiscardingThreshold(2048);
+            async.setNeverBlock(true);
+            async.addAppender(sink);
+            async.start();
+            target = async;
+        }
+
+        ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.addAppender(target);
+        root.setLevel(Level.toLevel(level));
+        log = LoggerFactory.getLogger(LoggingBenchmark.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void request() {
+        String taskId = "task-" + requests++;
+        MDC.put(TaskContext.CHAT_ID_KEY, "1000042");
+        MDC.put(TaskContext.TASK_ID_KEY, taskId);
+        try {
+            log.debug("Received message from {}: {}", "Alice", "https://youtu.be/dQw4w9WgXcQ");
+            log.debug("Processing YouTube URL: {} ({})", "https://www.youtube.com/watch?v=dQw4w9WgXcQ", "STANDARD");
+            log.debug("[{}] Fetching video metadata", taskId);
+            log.info("[{}] Video: {} by {} ({}{})", taskId, "Never Gonna Give You Up", "Rick Astley", "STANDARD", "");
+            log.debug("[{}] Downloading audio", taskId);
+            processOutput();
+            log.debug("[{}] Download completed: {}", taskId, "dQw4w9WgXcQ.m4a");
+            log.debug("[{}] Converting to MP3", taskId);
+            log.debug("[{}] Conversion completed: {}", taskId, "Never Gonna Give You Up.mp3");
+            log.info("[{}] Processing completed successfully", taskId);
+            log.info("Audio file sent successfully to chatId: {}", 1000042L);
+            log.info("[{}] Task files cleaned up", taskId);
+        } finally {
+            MDC.remove(TaskContext.TASK_ID_KEY);
+            MDC.remove(TaskContext.CHAT_ID_KEY);
+        }
+    }
+
+    // Same guard as CommandExecutor, with and without the sampling
+    private void processOutput() {
+        boolean debug = log.isDebugEnabled();
+        for (long line = 1; line <= PROCESS_OUTPUT_LINES; line++) {
+            if (debug && (!sampleProcessOutput || LogSampler.shouldLog(line))) {
+                log.debug("Command output [{}]: {}", line, PROGRESS_LINE);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.YouTubeUrl;
+import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlParser;
+import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * URL validation runs on every incoming text message. The regex* benchmarks are the
+ * pre-parser implementation, kept as the baseline (run with -prof gc to compare allocation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YouTubeUrlValidatorBenchmark {
+
+    private static final Pattern LEGACY_PATTERN = Pattern.compile(
+            "^(https?://)?(www\\.)?" +
+                    "(youtube\\.com/watch\\? v=|youtu\\.be/|youtube\\.com/embed/|youtube\\.com/v/)" +
+                    "([a-zA-Z0-9_-]{11}).*$"
+    );
+
+    @Param({
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ",
+            "https://youtu.be/dQw4w9WgXcQ?si=4kLx7Bq2mZ0c1a9P",
+            "https://www.youtube.com/embed/dQw4w9WgXcQ",
+            "https://music.youtube.com/watch?list=RDAMVMdQw4w9WgXcQ&v=dQw4w9WgXcQ&t=1m30s",
+            "hello, can you convert the song from yesterday please?"
+    })
+    public String url;
+
+    private final YouTubeUrlValidator validator = new YouTubeUrlValidator();
+
+    @Benchmark
+    public boolean isValidYouTubeUrl() {
+        return validator.isValidYouTubeUrl(url);
+    }
+
+    @Benchmark
+    public YouTubeUrl parse() {
+        return YouTubeUrlParser.parse(url);
+    }
+
+    @Benchmark
+    public boolean regexIsValid() {
+        return url != null && !url.trim().isEmpty() && LEGACY_PATTERN.matcher(url.trim()).matches();
+    }
+
+    @Benchmark
+    public String regexExtractVideoId() {
+        if (!regexIsValid()) {
+            return null;
+        }
+        if (url.contains("youtu.be/")) {
+            return url.substring(url.indexOf("youtu.be/") + 9, url.indexOf("youtu.be/") + 20);
+        } else if (url.contains("embed/")) {
+            int start = url.indexOf("embed/") + 6;
+            return url.substring(start, Math.min(start + 11, url.length()));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.LastCoderBoy.telegram_youtube_bot.service.storage.FileStorageService;
+import com.LastCoderBoy.telegram_youtube_bot.service.youtube.YtDlpServiceImpl;
+import com.LastCoderBoy.telegram_youtube_bot.service.youtube.YtDlpMetadataParser;
+import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON extraction and mapping of {@code --dump-json} output to {@link VideoMetadata}.
+ * The process is replaced by a canned payload so only the parsing cost is measured.
+ * {@code treeBaseline} is the previous approach: the whole dump as a String, read into a JsonNode tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class YtDlpMetadataBenchmark {
+
+    /** 40 formats is a short clip, 400 is a long music video with every DASH variant */
+    @Param({"40", "400"})
+    public int formats;
+
+    private static final String URL = "https://youtu.be/dQw4w9WgXcQ";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final YtDlpMetadataParser parser = new YtDlpMetadataParser();
+    private String payload;
+    private byte[] payloadBytes;
+    private YtDlpServiceImpl ytDlpService;
+
+    @Setup
+    public void setUp() {
+        payload = YtDlpPayloads.dumpJson("dQw4w9WgXcQ", formats);
+        payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        CommandExecutor cannedExecutor = new CommandExecutor() {
+            @Override
+            public <T> StreamResult<T> executeStreaming(OutputReader<T> outputReader, String... command)
+                    throws IOException {
+                return new StreamResult<>(0, outputReader.read(new ByteArrayInputStream(payloadBytes)), "");
+            }
+        };
+        ytDlpService = new YtDlpServiceImpl(cannedExecutor, new FileStorageService(new FileStorageProperties(), new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public VideoMetadata getVideoMetadata() {
+        return ytDlpService.getVideoMetadata(URL);
+    }
+
+    @Benchmark
+    public VideoMetadata streamingParse() throws IOException {
+        return parser.parse(new ByteArrayInputStream(payloadBytes), URL);
+    }
+
+    @Benchmark
+    public VideoMetadata treeBaseline() throws IOException {
+        JsonNode jsonNode = objectMapper.readTree(payload);
+        return VideoMetadata.builder()
+                .videoId(jsonNode.has("id") ? jsonNode.get("id").asText() : null)
+                .title(jsonNode.has("title") ? jsonNode.get("title").asText() : "Unknown")
+                .duration(jsonNode.has("duration") ? jsonNode.get("duration").asLong() : 0L)
+                .uploader(jsonNode.has("uploader") ? jsonNode.get("uploader").asText() : "Unknown")
+                .thumbnail(jsonNode.has("thumbnail") ? jsonNode.get("thumbnail").asText() : null)
+                .url(URL)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.LastCoderBoy.telegram_youtube_bot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Synthetic {@code yt-dlp --dump-json} output shaped like the real thing:
+ * a long formats array with nested headers and fragments, and a title containing braces.
+ */
+final class YtDlpPayloads {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private YtDlpPayloads() {
+    }
+
+    static String dumpJson(String videoId, int formatCount) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("id", videoId);
+        root.put("title", "Artist - Song {Official Video} }{ [4K Remaster] (Live at \"Arena\")");
+        root.put("description", "Lyrics, credits and links\n".repeat(200));
+        root.put("uploader", "ArtistVEVO");
+        root.put("uploader_id", "@ArtistVEVO");
+        root.put("channel_id", "UC" + videoId + videoId);
+        root.put("duration", 213);
+        root.put("view_count", 1_534_221_901L);
+        root.put("thumbnail", "https://i.ytimg.com/vi_webp/" + videoId + "/maxresdefault.webp");
+        root.put("webpage_url", "https://www.youtube.com/watch?v=" + videoId);
+
+        ArrayNode thumbnails = root.putArray("thumbnails");
+        for (int i = 0; i < 40; i++) {
+            ObjectNode thumbnail = thumbnails.addObject();
+            thumbnail.put("url", "https://i.ytimg.com/vi/" + videoId + "/" + i + ".jpg");
+            thumbnail.put("preference", -i);
+            thumbnail.put("id", String.valueOf(i));
+        }
+
+        ArrayNode formats = root.putArray("formats");
+        for (int i = 0; i < formatCount; i++) {
+            boolean audioOnly = i % 5 == 0;
+            ObjectNode format = formats.addObject();
+            format.put("format_id", String.valueOf(100 + i));
+            format.put("ext", audioOnly ? "m4a" : "mp4");
+            format.put("acodec", audioOnly ? "mp4a.40.2" : "none");
+            format.put("vcodec", audioOnly ? "none" : "avc1.640028");
+            format.put("abr", audioOnly ? 48 + i : 0);
+            format.put("tbr", 128.5 + i);
+            format.put("filesize", 1_000_000L + i * 50_000L);
+            format.put("url", "https://rr3---sn-4g5e6nsz.googlevideo.com/videoplayback?expire=1700000000&id=" + i
+                    + "&itag=" + i + "&source=youtube&requiressl=yes&sig=" + "A".repeat(120));
+            ObjectNode headers = format.putObject("http_headers");
+            headers.put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36");
+            headers.put("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8");
+            ArrayNode fragments = format.putArray("fragments");
+            for (int f = 0; f < 10; f++) {
+                fragments.addObject().put("url", "sq/" + f).put("duration", 5.0);
+            }
+        }
+
+        try {
+            return MAPPER.writeValueAsString(root) + "\n";
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.LastCoderBoy.telegram_youtube_bot.loadtest;
+
+import com.LastCoderBoy.telegram_youtube_bot.TelegramYoutubeBotApplication;
+import com.LastCoderBoy.telegram_youtube_bot.config.ConversionExecutorStats;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the whole bot offline: the app runs in-process against {@link StubBotApiServer}
+ * and the fake yt-dlp/ffmpeg scripts in loadtest/bin, while a synthetic user population
+ * sends YouTube links with Poisson arrivals.
+ *
+ * <p>Driver options (everything else is passed to the app, e.g. {@code --async.max-pool-size=8}):
+ * <ul>
+ *   <li>{@code --users} distinct chats (default 50)</li>
+ *   <li>{@code --requests} total links to send (default 200)</li>
+ *   <li>{@code --rate} mean arrivals per second (default 5)</li>
+ *   <li>{@code --videos} distinct video IDs, fewer means more repeats (default 150)</li>
+ *   <li>{@code --timeout-seconds} give up waiting for answers after this (default 600)</li>
+ *   <li>{@code --seed} random seed, so runs with different app settings see the same traffic (default 42)</li>
+ * </ul>
+ * Fake tool latency, sizes and failure rates come from the FAKE_* environment variables
+ * documented in the scripts.
+ *
+ * <p>Run with
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.args="--requests=500 --rate=10 --async.max-pool-size=8"
+ * </pre>
+ */
+public class LoadTestDriver {
+
+    private static final String ID_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+    private static final long FIRST_CHAT_ID = 1_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("users", "50");
+        options.put("requests", "200");
+        options.put("rate", "5");
+        options.put("videos", "150");
+        options.put("timeout-seconds", "600");
+        options.put("seed", "42");
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        parseArguments(args, options, appProperties);
+
+        int users = Integer.parseInt(options.get("users"));
+        int requests = Integer.parseInt(options.get("requests"));
+        double rate = Double.parseDouble(options.get("rate"));
+        int videos = Integer.parseInt(options.get("videos"));
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-seconds")));
+        Random random = new Random(Long.parseLong(options.get("seed")));
+
+        try (StubBotApiServer stub = new StubBotApiServer(0);
+             ConfigurableApplicationContext context = startApplication(stub, appProperties)) {
+
+            QueueSampler sampler = new QueueSampler(context.getBean(ConversionExecutorStats.class));
+
+            List<String> videoIds = randomVideoIds(videos, random);
+            long startedAt = System.nanoTime();
+
+            for (int i = 0; i < requests; i++) {
+                long chatId = FIRST_CHAT_ID + random.nextInt(users);
+                String videoId = videoIds.get(random.nextInt(videoIds.size()));
+                stub.enqueueMessage(chatId, "user" + chatId, "https://youtu.be/" + videoId);
+
+                double interArrivalSeconds = -Math.log(1 - random.nextDouble()) / rate;
+                TimeUnit.NANOSECONDS.sleep((long) (interArrivalSeconds * TimeUnit.SECONDS.toNanos(1)));
+            }
+
+            long deadline = startedAt + timeoutNanos;
+            while (stub.latencies().count() < requests && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+            double elapsedSeconds = (System.nanoTime() - startedAt) / (double) TimeUnit.SECONDS.toNanos(1);
+            sampler.stop();
+
+            report(context.getEnvironment(), stub, sampler, requests, elapsedSeconds);
+        }
+    }
+
+    static ConfigurableApplicationContext startApplication(StubBotApiServer stub, Map<String, String> appProperties)
+            throws Exception {
+        Path workDir = Files.createTempDirectory("bot-loadtest");
+        return new SpringApplicationBuilder(TelegramYoutubeBotApplication.class)
+                .run(commandLine(stub, workDir, appProperties));
+    }
+
+    /**
+     * Application arguments pointing the bot at the stub API and the fake tools
+     */
+    static String[] commandLine(StubBotApiServer stub, Path workDir, Map<String, String> appProperties) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("telegram.bot.token", "loadtest-token");
+        properties.put("telegram.bot.username", "loadtest_bot");
+        properties.put("youtube.download.yt-dlp-path", Path.of("loadtest/bin/fake-yt-dlp").toAbsolutePath().toString());
+        properties.put("ffmpeg.path", Path.of("loadtest/bin/fake-ffmpeg").toAbsolutePath().toString());
+        properties.put("file.storage.base-path", workDir.toString());
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.putAll(appProperties);
+        properties.put("telegram.bot.api-base-url", stub.baseUrl());
+        properties.put("cache.thumbnail-base-url", stub.thumbnailBaseUrl());
+
+        // Command-line arguments so they win over application.yml
+        return properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+    }
+
+    static void parseArguments(String[] args, Map<String, String> options, Map<String, String> appProperties) {
+        // Maven passes -Dloadtest.args as one argument, so split on whitespace as well
+        for (String arg : String.join(" ", args).trim().split("\\s+")) {
+            if (arg.isEmpty()) {
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            String key = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (options.containsKey(key)) {
+                options.put(key, value);
+            } else {
+                appProperties.put(key, value);
+            }
+        }
+    }
+
+    private static List<String> randomVideoIds(int count, Random random) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder id = new StringBuilder(11);
+            for (int c = 0; c < 11; c++) {
+                id.append(ID_ALPHABET.charAt(random.nextInt(ID_ALPHABET.length())));
+            }
+            ids.add(id.toString());
+        }
+        return ids;
+    }
+
+    static void report(Environment environment, StubBotApiServer stub, QueueSampler sampler,
+                               int requests, double elapsedSeconds) {
+        LatencyRecorder latencies = stub.latencies();
+        System.out.println();
+        System.out.println("=== Load test report ===");
+        System.out.printf("Executor: mode=%s core=%s max=%s queue=%s fast-lane=%s (<= %s s) aging=%s ms/min%n",
+                environment.getProperty("async.mode"),
+                environment.getProperty("async.core-pool-size"),
+                environment.getProperty("async.max-pool-size"),
+                environment.getProperty("async.queue-capacity"),
+                environment.getProperty("async.fast-lane-workers"),
+                environment.getProperty("async.fast-lane-max-seconds"),
+                environment.getProperty("async.aging-millis-per-audio-minute"));
+        System.out.printf("Requests: %d sent, %d audio delivered, %d failed, %d unanswered%n",
+                requests, stub.audioDeliveries(), stub.failureReplies(), stub.pendingRequests());
+        System.out.printf("Throughput: %.2f answers/s over %.1f s%n", latencies.count() / elapsedSeconds, elapsedSeconds);
+        System.out.printf("Queue depth: max=%d mean=%.1f, active workers: max=%d%n",
+                sampler.maxQueueDepth(), sampler.meanQueueDepth(), sampler.maxActive());
+        System.out.printf("End-to-end latency ms: p50=%.0f p90=%.0f p99=%.0f max=%.0f%n",
+                latencies.percentileMillis(50), latencies.percentileMillis(90),
+                latencies.percentileMillis(99), latencies.percentileMillis(100));
+    }
+
+    /**
+     * Samples the conversion executor every 250 ms
+     */
+    static final class QueueSampler {
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicLong maxQueueDepth = new AtomicLong();
+        private final AtomicLong maxActive = new AtomicLong();
+        private final LongAdder queueDepthSum = new LongAdder();
+        private final LongAdder samples = new LongAdder();
+
+        QueueSampler(ConversionExecutorStats executor) {
+            scheduler.scheduleAtFixedRate(() -> {
+                int queueDepth = executor.getQueueSize();
+                maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+                maxActive.accumulateAndGet(executor.getActiveCount(), Math::max);
+                queueDepthSum.add(queueDepth);
+                samples.increment();
+            }, 0, 250, TimeUnit.MILLISECONDS);
+        }
+
+        void stop() {
+            scheduler.shutdownNow();
+        }
+
+        private long maxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        private long maxActive() {
+            return maxActive.get();
+        }
+
+        private double meanQueueDepth() {
+            long count = samples.sum();
+            return count == 0 ? 0 : queueDepthSum.sum() / (double) count;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.LastCoderBoy.telegram_youtube_bot.loadtest;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ConversionExecutorStats;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds a recording made with {@code recording.enabled=true} back into the bot, keeping the
+ * original gaps between updates (divided by {@code --speed}). Like {@link LoadTestDriver} the
+ * app runs in-process against {@link StubBotApiServer} and the fake tools, so an incident's
+ * traffic can be reproduced and scheduler changes compared on real arrival patterns.
+ *
+ * <p>Options (everything else is passed to the app):
+ * <ul>
+ *   <li>{@code --recording} the updates.jsonl file to replay (required)</li>
+ *   <li>{@code --speed} time compression, 10 replays an hour in six minutes (default 1)</li>
+ *   <li>{@code --limit} replay only the first N updates, 0 for all (default 0)</li>
+ *   <li>{@code --timeout-seconds} give up waiting for answers after the last update (default 600)</li>
+ * </ul>
+ * Run with
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.LastCoderBoy.telegram_youtube_bot.loadtest.ReplayRunner \
+ *     -Dloadtest.args="--recording=updates.jsonl --speed=10"
+ * </pre>
+ */
+public class ReplayRunner {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("recording", "");
+        options.put("speed", "1");
+        options.put("limit", "0");
+        options.put("timeout-seconds", "600");
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        LoadTestDriver.parseArguments(args, options, appProperties);
+
+        if (options.get("recording").isEmpty()) {
+            throw new IllegalArgumentException("--recording=<path to updates.jsonl> is required");
+        }
+        Path recording = Path.of(options.get("recording"));
+        double speed = Double.parseDouble(options.get("speed"));
+        long limit = Long.parseLong(options.get("limit"));
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-seconds")));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        try (StubBotApiServer stub = new StubBotApiServer(0);
+             ConfigurableApplicationContext context = LoadTestDriver.startApplication(stub, appProperties);
+             BufferedReader reader = Files.newBufferedReader(recording, StandardCharsets.UTF_8)) {
+
+            LoadTestDriver.QueueSampler sampler =
+                    new LoadTestDriver.QueueSampler(context.getBean(ConversionExecutorStats.class));
+
+            long startedAt = System.nanoTime();
+            long firstAt = -1;
+            int replayed = 0;
+            int requests = 0;
+            int skipped = 0;
+            String line;
+            while ((line = reader.readLine()) != null && (limit == 0 || replayed < limit)) {
+                JsonNode entry;
+                try {
+                    entry = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    // Typically the last line, cut short when the recording bot stopped
+                    skipped++;
+                    continue;
+                }
+                if (!(entry.path("update") instanceof ObjectNode update)) {
+                    skipped++;
+                    continue;
+                }
+
+                long at = entry.path("at").asLong();
+                if (firstAt < 0) {
+                    firstAt = at;
+                }
+                long dueAt = startedAt + (long) (TimeUnit.MILLISECONDS.toNanos(at - firstAt) / speed);
+                long wait = dueAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+
+                if (isTimedRequest(update)) {
+                    requests++;
+                }
+                stub.enqueueUpdate(update);
+                replayed++;
+            }
+            System.out.printf("Replayed %d updates (%d skipped) from %s at %sx%n", replayed, skipped, recording, speed);
+
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (stub.pendingRequests() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(200);
+            }
+            double elapsedSeconds = (System.nanoTime() - startedAt) / (double) TimeUnit.SECONDS.toNanos(1);
+            sampler.stop();
+
+            LoadTestDriver.report(context.getEnvironment(), stub, sampler, requests, elapsedSeconds);
+        }
+    }
+
+    // Same rule as the stub: plain text messages are timed, commands and callbacks are not
+    private static boolean isTimedRequest(JsonNode update) {
+        JsonNode message = update.path("message");
+        return message.hasNonNull("text") && !message.path("text").asText().startsWith("/");
+    }
+}
@@ -0,0 +1,139 @@
+package com.LastCoderBoy.telegram_youtube_bot.loadtest;
+
+import com.LastCoderBoy.telegram_youtube_bot.TelegramYoutubeBotApplication;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching the JVM to the bot's first answer. Each run starts the bot in a
+ * fresh child JVM against its own {@link StubBotApiServer}, with a /start message already
+ * waiting in getUpdates, so the measurement covers JVM start, context refresh, bot
+ * registration, the first poll and the first sendMessage.
+ *
+ * <p>Options (everything else is passed to the app):
+ * <ul>
+ *   <li>{@code --runs} measured runs (default 5)</li>
+ *   <li>{@code --warmup} runs discarded first, to warm the OS file cache (default 1)</li>
+ *   <li>{@code --jar} launch this jar with -jar instead of the test classpath, e.g. the
+ *       extracted production build in target/application</li>
+ *   <li>{@code --jvm-args} comma-separated JVM options, e.g.
+ *       {@code -XX:SharedArchiveFile=target/application/application.jsa,-Dspring.aot.enabled=true}</li>
+ *   <li>{@code --timeout-seconds} give up on a run after this (default 120)</li>
+ * </ul>
+ * Run with
+ * <pre>
+ * mvn -Ploadtest verify -Dloadtest.main=com.LastCoderBoy.telegram_youtube_bot.loadtest.StartupBenchmark
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    private static final long CHAT_ID = 1_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("runs", "5");
+        options.put("warmup", "1");
+        options.put("jar", "");
+        options.put("jvm-args", "");
+        options.put("timeout-seconds", "120");
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        LoadTestDriver.parseArguments(args, options, appProperties);
+
+        int runs = Integer.parseInt(options.get("runs"));
+        int warmup = Integer.parseInt(options.get("warmup"));
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-seconds")));
+        List<String> jvmArgs = options.get("jvm-args").isEmpty()
+                ? List.of()
+                : Arrays.asList(options.get("jvm-args").split(","));
+
+        List<Long> samples = new ArrayList<>();
+        int failures = 0;
+        for (int run = 0; run < warmup + runs; run++) {
+            long nanos = timeFirstReply(options.get("jar"), jvmArgs, appProperties, timeoutNanos);
+            if (run < warmup) {
+                continue;
+            }
+            if (nanos < 0) {
+                failures++;
+            } else {
+                samples.add(nanos);
+            }
+        }
+
+        report(options.get("jar"), jvmArgs, samples, failures);
+    }
+
+    /**
+     * @return nanos from launch to the first reply, or -1 if the bot never answered
+     */
+    private static long timeFirstReply(String jar, List<String> jvmArgs, Map<String, String> appProperties,
+                                       long timeoutNanos) throws Exception {
+        try (StubBotApiServer stub = new StubBotApiServer(0)) {
+            Path workDir = Files.createTempDirectory("bot-startup");
+            Path log = workDir.resolve("app.log");
+            stub.enqueueMessage(CHAT_ID, "startup", "/start");
+
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArgs);
+            if (jar.isEmpty()) {
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(TelegramYoutubeBotApplication.class.getName());
+            } else {
+                command.add("-jar");
+                command.add(jar);
+            }
+            command.addAll(Arrays.asList(LoadTestDriver.commandLine(stub, workDir, appProperties)));
+
+            long launchedAt = System.nanoTime();
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            try {
+                long deadline = launchedAt + timeoutNanos;
+                while (stub.firstReplyNanos() == 0 && process.isAlive() && System.nanoTime() < deadline) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+                if (stub.firstReplyNanos() == 0) {
+                    System.err.println("No reply from the bot, see " + log);
+                    return -1;
+                }
+                return stub.firstReplyNanos() - launchedAt;
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static void report(String jar, List<String> jvmArgs, List<Long> samples, int failures) {
+        System.out.println();
+        System.out.println("=== Startup report ===");
+        System.out.printf("Launch: %s%s%n", jar.isEmpty() ? "classpath" : "-jar " + jar,
+                jvmArgs.isEmpty() ? "" : " " + String.join(" ", jvmArgs));
+        System.out.printf("Runs: %d measured, %d without a reply%n", samples.size(), failures);
+        if (samples.isEmpty()) {
+            return;
+        }
+        List<Long> sorted = samples.stream().sorted().toList();
+        double meanNanos = sorted.stream().mapToLong(Long::longValue).average().orElse(0);
+        System.out.printf("Time to first handled update ms: min=%.0f median=%.0f mean=%.0f max=%.0f%n",
+                millis(sorted.get(0)), millis(sorted.get(sorted.size() / 2)), meanNanos / 1e6,
+                millis(sorted.get(sorted.size() - 1)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,257 @@
+package com.LastCoderBoy.telegram_youtube_bot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal in-process Telegram Bot API. Serves getUpdates from an injected update stream,
+ * accepts sendMessage/sendAudio/edits, and measures the time from a user's message
+ * to the bot's answer (audio delivered or an error message).
+ */
+public class StubBotApiServer implements AutoCloseable {
+
+    private static final Pattern MULTIPART_CHAT_ID = Pattern.compile(
+            "name=\"chat_id\"\r\n(?:[^\r\n]+\r\n)*\r\n(-?\\d+)\r\n");
+    private static final long MAX_POLL_WAIT_MILLIS = 1000;
+    // SOI + EOI markers: enough for the fake ffmpeg, which never decodes it
+    private static final byte[] THUMBNAIL_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final List<ObjectNode> updates = new ArrayList<>();
+    private final Map<Long, Deque<Long>> pendingRequests = new ConcurrentHashMap<>();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final AtomicLong updateIds = new AtomicLong();
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private final AtomicLong audioDeliveries = new AtomicLong();
+    private final AtomicLong failureReplies = new AtomicLong();
+    private final AtomicLong firstReplyNanos = new AtomicLong();
+
+    public StubBotApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * Base URL for DefaultBotOptions: the token is appended after "bot"
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Base URL for cache.thumbnail-base-url, so cover art is served locally instead of by i.ytimg.com
+     */
+    public String thumbnailBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/thumbs";
+    }
+
+    /**
+     * Queue a text message from a user, as if typed into the chat
+     */
+    public void enqueueMessage(long chatId, String firstName, String text) {
+        ObjectNode update = objectMapper.createObjectNode();
+        ObjectNode message = update.putObject("message");
+        message.put("message_id", messageIds.incrementAndGet());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("text", text);
+        message.putObject("from").put("id", chatId).put("is_bot", false).put("first_name", firstName);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        enqueueUpdate(update);
+    }
+
+    /**
+     * Queue a raw update (e.g. from a recording). Updates carrying a text message are timed.
+     */
+    public void enqueueUpdate(ObjectNode update) {
+        update.put("update_id", updateIds.incrementAndGet());
+        JsonNode message = update.path("message");
+        if (message.hasNonNull("text") && !message.path("text").asText().startsWith("/")) {
+            long chatId = message.path("chat").path("id").asLong();
+            pendingRequests.computeIfAbsent(chatId, id -> new ArrayDeque<>());
+            Deque<Long> pending = pendingRequests.get(chatId);
+            synchronized (pending) {
+                pending.addLast(System.nanoTime());
+            }
+        }
+        synchronized (updates) {
+            updates.add(update);
+            updates.notifyAll();
+        }
+    }
+
+    public LatencyRecorder latencies() {
+        return latencies;
+    }
+
+    public long audioDeliveries() {
+        return audioDeliveries.get();
+    }
+
+    public long failureReplies() {
+        return failureReplies.get();
+    }
+
+    /**
+     * nanoTime of the first reply the bot sent, 0 if none yet
+     */
+    public long firstReplyNanos() {
+        return firstReplyNanos.get();
+    }
+
+    public int pendingRequests() {
+        return pendingRequests.values().stream().mapToInt(pending -> {
+            synchronized (pending) {
+                return pending.size();
+            }
+        }).sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/thumbs/")) {
+                exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+                exchange.sendResponseHeaders(200, THUMBNAIL_JPEG.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(THUMBNAIL_JPEG);
+                }
+                return;
+            }
+            // telegrambots posts to lower-case paths (getupdates, sendmessage); the real API ignores case too
+            String method = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+
+            JsonNode result = switch (method) {
+                case "getupdates" -> getUpdates(parseJson(body));
+                case "getme" -> objectMapper.createObjectNode()
+                        .put("id", 1).put("is_bot", true).put("first_name", "Stub").put("username", "stub_bot");
+                case "sendmessage" -> sendMessage(parseJson(body));
+                case "editmessagetext" -> {
+                    JsonNode request = parseJson(body);
+                    yield message(request.path("chat_id").asLong(), request);
+                }
+                case "sendaudio", "sendvoice", "senddocument" -> sendAudio(method, body);
+                default -> objectMapper.getNodeFactory().booleanNode(true);
+            };
+
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("ok", true);
+            response.set("result", result);
+            byte[] bytes = objectMapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private JsonNode getUpdates(JsonNode request) throws IOException {
+        long offset = request.path("offset").asLong(0);
+        long waitMillis = Math.min(TimeUnit.SECONDS.toMillis(request.path("timeout").asLong(0)), MAX_POLL_WAIT_MILLIS);
+
+        ArrayNode result = objectMapper.createArrayNode();
+        synchronized (updates) {
+            updates.removeIf(update -> update.path("update_id").asLong() < offset);
+            if (updates.isEmpty() && waitMillis > 0) {
+                try {
+                    updates.wait(waitMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            updates.stream().limit(100).forEach(result::add);
+        }
+        return result;
+    }
+
+    private JsonNode sendMessage(JsonNode request) {
+        long chatId = request.path("chat_id").asLong();
+        String text = request.path("text").asText("");
+        firstReplyNanos.compareAndSet(0, System.nanoTime());
+        if (text.startsWith("❌")) {
+            failureReplies.incrementAndGet();
+            completeRequest(chatId);
+        }
+        return message(chatId, request);
+    }
+
+    private JsonNode sendAudio(String method, byte[] body) {
+        // Multipart upload: only the chat_id field is needed, the file itself is discarded
+        Matcher matcher = MULTIPART_CHAT_ID.matcher(new String(body, StandardCharsets.ISO_8859_1));
+        long chatId = matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+        audioDeliveries.incrementAndGet();
+        completeRequest(chatId);
+
+        ObjectNode message = message(chatId, objectMapper.createObjectNode());
+        int id = message.path("message_id").asInt();
+        // Voice notes come back as "voice", the bot caches their file_id from there
+        message.putObject("sendvoice".equals(method) ? "voice" : "audio")
+                .put("file_id", "stub-audio-" + id)
+                .put("file_unique_id", "stub-unique-" + id)
+                .put("duration", 0);
+        return message;
+    }
+
+    private ObjectNode message(long chatId, JsonNode request) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("message_id", request.path("message_id").asInt(messageIds.incrementAndGet()));
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        if (request.hasNonNull("text")) {
+            message.put("text", request.path("text").asText());
+        }
+        return message;
+    }
+
+    private void completeRequest(long chatId) {
+        Deque<Long> pending = pendingRequests.get(chatId);
+        if (pending == null) {
+            return;
+        }
+        Long startedAt;
+        synchronized (pending) {
+            startedAt = pending.pollFirst();
+        }
+        if (startedAt != null) {
+            latencies.record(System.nanoTime() - startedAt);
+        }
+    }
+
+    private JsonNode parseJson(byte[] body) throws IOException {
+        return body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+    }
+}
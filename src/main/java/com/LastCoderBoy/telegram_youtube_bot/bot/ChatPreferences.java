@@ -0,0 +1,48 @@
+package com.LastCoderBoy.telegram_youtube_bot.bot;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.util.BoundedCache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Per-chat choices made through the bot's menus. Kept in memory and bounded;
+ * a chat that hasn't been seen for a while falls back to the defaults.
+ */
+@Component
+public class ChatPreferences {
+
+    private static final int MAX_CHATS = 100_000;
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    private final BoundedCache<Long, AudioProfile> profiles = new BoundedCache<>(MAX_CHATS, RETENTION);
+    private final BoundedCache<Long, AudioFormat> formats = new BoundedCache<>(MAX_CHATS, RETENTION);
+
+    public AudioProfile getProfile(Long chatId) {
+        AudioProfile profile = profiles.get(chatId);
+        return profile != null ? profile : AudioProfile.STANDARD;
+    }
+
+    public void setProfile(Long chatId, AudioProfile profile) {
+        if (profile == AudioProfile.STANDARD) {
+            profiles.remove(chatId);
+        } else {
+            profiles.put(chatId, profile);
+        }
+    }
+
+    public AudioFormat getFormat(Long chatId) {
+        AudioFormat format = formats.get(chatId);
+        return format != null ? format : AudioFormat.MP3;
+    }
+
+    public void setFormat(Long chatId, AudioFormat format) {
+        if (format == AudioFormat.MP3) {
+            formats.remove(chatId);
+        } else {
+            formats.put(chatId, format);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.LastCoderBoy.telegram_youtube_bot.bot;
+
+
+import com.LastCoderBoy.telegram_youtube_bot.config.AsyncProperties;
+import com.LastCoderBoy.telegram_youtube_bot.config.TelegramRateLimitProperties;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.CircuitBreakerRegistry;
+import com.LastCoderBoy.telegram_youtube_bot.util.Backoff;
+import com.LastCoderBoy.telegram_youtube_bot.util.CircuitBreaker;
+import com.LastCoderBoy.telegram_youtube_bot.util.TokenBucket;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.bots.AbsSender;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound queue for every call to the Bot API.
+ * Enforces Telegram's global and per-chat rate limits, sends audio ahead of status chatter,
+ * uploads files on their own workers so a large upload never holds up other chats' messages,
+ * retries 429/5xx responses and network errors and collapses consecutive status updates into
+ * edits of one message. While 5xx and network errors keep coming, a circuit breaker holds
+ * requests back instead of sending them into a failing API.
+ */
+@Slf4j
+@Component
+public class OutboundMessageDispatcher {
+
+    private static final long LANE_IDLE_EVICTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final long SERVER_ERROR_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_SERVER_ERROR_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    public enum Priority {
+        HIGH,
+        NORMAL
+    }
+
+    @FunctionalInterface
+    public interface TelegramCall<T> {
+        T execute(AbsSender sender) throws TelegramApiException;
+    }
+
+    private final TelegramRateLimitProperties properties;
+    private final boolean virtualThreads;
+    private final TokenBucket globalBucket;
+    private final CircuitBreaker breaker;
+    private final PriorityBlockingQueue<OutboundRequest<?>> queue = new PriorityBlockingQueue<>();
+    private final PriorityBlockingQueue<OutboundRequest<?>> uploadQueue = new PriorityBlockingQueue<>();
+    private final ConcurrentHashMap<Long, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, StatusSlot> statusSlots = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<>();
+
+    private ScheduledExecutorService retryScheduler;
+    private volatile AbsSender sender;
+    private volatile boolean running;
+
+    public OutboundMessageDispatcher(TelegramRateLimitProperties properties, AsyncProperties asyncProperties,
+                                     CircuitBreakerRegistry breakers) {
+        this.properties = properties;
+        this.virtualThreads = asyncProperties.getMode() == AsyncProperties.Mode.VIRTUAL;
+        this.globalBucket = new TokenBucket(properties.getGlobalPerSecond(), properties.getGlobalPerSecond());
+        this.breaker = breakers.get(CircuitBreakerRegistry.TELEGRAM);
+    }
+
+    /**
+     * Start the worker threads. Called by the bot once it is constructed.
+     */
+    public synchronized void start(AbsSender sender) {
+        if (running) {
+            return;
+        }
+        this.sender = sender;
+        this.running = true;
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-outbound-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryScheduler.scheduleAtFixedRate(this::evictIdleLanes, 1, 1, TimeUnit.MINUTES);
+
+        // In virtual mode a single worker per queue paces requests and each call runs on its own virtual thread
+        int workerCount = virtualThreads ? 1 : properties.getWorkers();
+        int uploadWorkerCount = virtualThreads ? 1 : properties.getUploadWorkers();
+        startWorkers(queue, workerCount, "telegram-outbound-");
+        startWorkers(uploadQueue, uploadWorkerCount, "telegram-upload-");
+        log.info("Outbound dispatcher started: {}, {} msg/s global, {} msg/s per chat",
+                virtualThreads ? "virtual thread per call" : workerCount + " workers, " + uploadWorkerCount
+                        + " upload workers",
+                properties.getGlobalPerSecond(), properties.getPerChatPerSecond());
+    }
+
+    private void startWorkers(PriorityBlockingQueue<OutboundRequest<?>> source, int count, String namePrefix) {
+        for (int i = 0; i < count; i++) {
+            Thread worker = new Thread(() -> runWorker(source), namePrefix + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        workers.clear();
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        log.info("Outbound dispatcher stopped, {} requests dropped", queue.size() + uploadQueue.size());
+    }
+
+    /**
+     * Queue a Bot API call for the given chat
+     * @return future completed with the API response, or exceptionally once retries are exhausted
+     */
+    public <T> CompletableFuture<T> submit(Long chatId, Priority priority, TelegramCall<T> call) {
+        return enqueue(new OutboundRequest<>(chatId, priority, sequence.incrementAndGet(), call, false));
+    }
+
+    /**
+     * Queue a call that uploads a file. Runs on the upload workers, still in order with the chat's other calls.
+     * @return future completed with the API response, or exceptionally once retries are exhausted
+     */
+    public <T> CompletableFuture<T> submitUpload(Long chatId, TelegramCall<T> call) {
+        return enqueue(new OutboundRequest<>(chatId, Priority.HIGH, sequence.incrementAndGet(), call, true));
+    }
+
+    private <T> CompletableFuture<T> enqueue(OutboundRequest<T> request) {
+        queueFor(request).add(request);
+        return request.future;
+    }
+
+    private PriorityBlockingQueue<OutboundRequest<?>> queueFor(OutboundRequest<?> request) {
+        return request.upload ? uploadQueue : queue;
+    }
+
+    /**
+     * Fire-and-forget text message
+     */
+    public void sendMessage(Long chatId, String text) {
+        SendMessage message = SendMessage.builder()
+                .chatId(chatId.toString())
+                .text(text)
+                .build();
+
+        submit(chatId, Priority.NORMAL, s -> s.execute(message))
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send message to {}: {}", chatId, ex.getMessage());
+                    } else {
+                        log.debug("Message sent to {}: {}", chatId, text);
+                    }
+                });
+    }
+
+    /**
+     * Show a progress message for the chat. The first call sends a message, later calls edit it,
+     * and updates that arrive while the previous one is still queued only replace its text.
+     */
+    public void sendStatus(Long chatId, String text) {
+        StatusSlot slot = statusSlots.computeIfAbsent(chatId, id -> new StatusSlot());
+        synchronized (slot) {
+            slot.pendingText = text;
+            if (slot.queued) {
+                log.debug("Coalesced status update for chat {}", chatId);
+                return;
+            }
+            slot.queued = true;
+        }
+
+        submit(chatId, Priority.NORMAL, s -> publishStatus(s, chatId, slot))
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to update status for {}: {}", chatId, ex.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Forget the chat's status message so the next status starts a new one
+     */
+    public void clearStatus(Long chatId) {
+        statusSlots.remove(chatId);
+    }
+
+    public int getQueueSize() {
+        return queue.size() + uploadQueue.size();
+    }
+
+    private Serializable publishStatus(AbsSender sender, Long chatId, StatusSlot slot) throws TelegramApiException {
+        String text;
+        Integer messageId;
+        synchronized (slot) {
+            slot.queued = false;
+            text = slot.pendingText;
+            messageId = slot.messageId;
+        }
+
+        if (text.equals(slot.publishedText)) {
+            return null;  // Telegram rejects edits that don't change the text
+        }
+
+        if (messageId != null) {
+            try {
+                Serializable result = sender.execute(EditMessageText.builder()
+                        .chatId(chatId.toString())
+                        .messageId(messageId)
+                        .text(text)
+                        .build());
+                slot.publishedText = text;
+                return result;
+            } catch (TelegramApiRequestException e) {
+                if (e.getErrorCode() == null || e.getErrorCode() != 400) {
+                    throw e;
+                }
+                // Message was deleted or is too old to edit, fall back to a new one
+                log.debug("Status edit rejected for chat {}: {}", chatId, e.getApiResponse());
+            }
+        }
+
+        Message message = sender.execute(SendMessage.builder()
+                .chatId(chatId.toString())
+                .text(text)
+                .build());
+        slot.messageId = message.getMessageId();
+        slot.publishedText = text;
+        return message;
+    }
+
+    private void runWorker(PriorityBlockingQueue<OutboundRequest<?>> source) {
+        while (running) {
+            OutboundRequest<?> request;
+            try {
+                request = source.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            ChatLane lane;
+            long waitNanos;
+            boolean parked = false;
+            while (true) {
+                lane = lanes.computeIfAbsent(request.chatId, id -> new ChatLane(
+                        new TokenBucket(properties.getPerChatBurst(), properties.getPerChatPerSecond())));
+                synchronized (lane) {
+                    if (lane.evicted) {
+                        continue;  // Removed between lookup and lock, take the replacement
+                    }
+                    if (lane.busy) {
+                        // Keep per-chat ordering: one request per chat in flight
+                        lane.parked.add(request);
+                        parked = true;
+                        waitNanos = 0;
+                        break;
+                    }
+                    waitNanos = Math.max(request.notBefore - System.nanoTime(), 0);
+                    if (waitNanos == 0) {
+                        waitNanos = lane.bucket.tryAcquire();
+                    }
+                    if (waitNanos == 0) {
+                        lane.busy = true;
+                    }
+                    break;
+                }
+            }
+
+            if (parked) {
+                continue;
+            }
+            if (waitNanos > 0) {
+                defer(request, waitNanos);
+                continue;
+            }
+
+            long breakerWaitNanos = breaker.tryAcquire();
+            if (breakerWaitNanos > 0) {
+                // Counts as an attempt, so callers blocked on the future give up eventually
+                release(lane);
+                retry(request, breakerWaitNanos, new TelegramApiException("Telegram circuit is open"));
+                continue;
+            }
+
+            try {
+                globalBucket.acquire();
+            } catch (InterruptedException e) {
+                breaker.recordIgnored();
+                request.future.completeExceptionally(e);
+                release(lane);
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (virtualThreads) {
+                ChatLane acquired = lane;
+                Thread.ofVirtual().name("telegram-outbound-call").start(() -> dispatchAndRelease(request, acquired));
+            } else {
+                dispatchAndRelease(request, lane);
+            }
+        }
+    }
+
+    private void dispatchAndRelease(OutboundRequest<?> request, ChatLane lane) {
+        try {
+            dispatch(request, lane);
+        } finally {
+            release(lane);
+        }
+    }
+
+    private <T> void dispatch(OutboundRequest<T> request, ChatLane lane) {
+        try {
+            T result = request.call.execute(sender);
+            breaker.recordSuccess();
+            request.future.complete(result);
+        } catch (TelegramApiRequestException e) {
+            int errorCode = e.getErrorCode() != null ? e.getErrorCode() : 0;
+            Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+
+            if (errorCode == 429 || retryAfter != null) {
+                // Telegram is up, just pacing us
+                breaker.recordSuccess();
+                long delayNanos = TimeUnit.SECONDS.toNanos(retryAfter != null ? retryAfter : 1);
+                lane.bucket.pauseFor(delayNanos);
+                log.warn("Rate limited by Telegram for chat {}, retrying after {}s", request.chatId,
+                        TimeUnit.NANOSECONDS.toSeconds(delayNanos));
+                retry(request, delayNanos, e);
+            } else if (errorCode >= 500) {
+                breaker.recordFailure();
+                log.warn("Telegram server error {} for chat {}, retrying", errorCode, request.chatId);
+                retry(request, serverErrorBackoff(request), e);
+            } else {
+                breaker.recordSuccess();
+                request.future.completeExceptionally(e);
+            }
+        } catch (TelegramApiValidationException e) {
+            // Rejected locally before sending, another attempt would be rejected the same way
+            breaker.recordIgnored();
+            request.future.completeExceptionally(e);
+        } catch (TelegramApiException e) {
+            // No response at all: connection refused, reset or timed out
+            breaker.recordFailure();
+            log.warn("Telegram call for chat {} failed, retrying: {}", request.chatId, e.getMessage());
+            retry(request, serverErrorBackoff(request), e);
+        } catch (RuntimeException e) {
+            breaker.recordIgnored();
+            request.future.completeExceptionally(e);
+        }
+    }
+
+    private static long serverErrorBackoff(OutboundRequest<?> request) {
+        return Backoff.jittered(SERVER_ERROR_BACKOFF_NANOS, request.attempts + 1, MAX_SERVER_ERROR_BACKOFF_NANOS);
+    }
+
+    private void retry(OutboundRequest<?> request, long delayNanos, TelegramApiException cause) {
+        if (++request.attempts > properties.getMaxRetries()) {
+            request.future.completeExceptionally(cause);
+            return;
+        }
+        request.notBefore = System.nanoTime() + delayNanos;
+        defer(request, delayNanos);
+    }
+
+    private void defer(OutboundRequest<?> request, long delayNanos) {
+        if (!running) {
+            request.future.cancel(false);
+            return;
+        }
+        retryScheduler.schedule(() -> queueFor(request).add(request), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void release(ChatLane lane) {
+        synchronized (lane) {
+            lane.busy = false;
+            lane.parked.forEach(request -> queueFor(request).add(request));
+            lane.parked.clear();
+        }
+    }
+
+    // Removes under the lane's lock and marks it, so a worker that looked the lane up just before retries
+    private void evictIdleLanes() {
+        lanes.forEach((chatId, lane) -> {
+            synchronized (lane) {
+                if (!lane.busy && lane.parked.isEmpty() && lane.bucket.idleNanos() > LANE_IDLE_EVICTION_NANOS
+                        && lanes.remove(chatId, lane)) {
+                    lane.evicted = true;
+                }
+            }
+        });
+    }
+
+    private static final class OutboundRequest<T> implements Comparable<OutboundRequest<?>> {
+        private final Long chatId;
+        private final Priority priority;
+        private final long sequence;
+        private final TelegramCall<T> call;
+        private final boolean upload;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private int attempts;
+        private long notBefore = System.nanoTime();
+
+        private OutboundRequest(Long chatId, Priority priority, long sequence, TelegramCall<T> call, boolean upload) {
+            this.chatId = chatId;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.call = call;
+            this.upload = upload;
+        }
+
+        @Override
+        public int compareTo(OutboundRequest<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class ChatLane {
+        private final TokenBucket bucket;
+        private final Deque<OutboundRequest<?>> parked = new ArrayDeque<>();
+        private boolean busy;
+        private boolean evicted;
+
+        private ChatLane(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class StatusSlot {
+        private volatile Integer messageId;
+        private volatile String publishedText;
+        private String pendingText;
+        private boolean queued;
+    }
+}
@@ -2,44 +2,122 @@ package com.LastCoderBoy.telegram_youtube_bot.bot;
 
 
 import com.LastCoderBoy.telegram_youtube_bot.config.BotProperties;
+import com.LastCoderBoy.telegram_youtube_bot.exception.TaskCancelledException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
+import com.LastCoderBoy.telegram_youtube_bot.model.CachedAudio;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionOptions;
 import com.LastCoderBoy.telegram_youtube_bot.model.ConversionStatus;
 import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskPhase;
 import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.LastCoderBoy.telegram_youtube_bot.model.YouTubeUrl;
 import com.LastCoderBoy.telegram_youtube_bot.service.ConversionOrchestrationService;
+import com.LastCoderBoy.telegram_youtube_bot.service.cache.MetadataPrefetcher;
+import com.LastCoderBoy.telegram_youtube_bot.service.cache.VideoCacheService;
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.ResourceLimiter;
+import com.LastCoderBoy.telegram_youtube_bot.service.metrics.PipelineMetrics;
+import com.LastCoderBoy.telegram_youtube_bot.service.replay.UpdateRecorder;
+import com.LastCoderBoy.telegram_youtube_bot.service.task.TaskRegistry;
+import com.LastCoderBoy.telegram_youtube_bot.service.tracing.TaskTracer;
+import com.LastCoderBoy.telegram_youtube_bot.util.TaskContext;
+import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlParser;
 import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlValidator;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.AnswerInlineQuery;
 import org.telegram.telegrambots.meta.api.methods.send.SendAudio;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.send.SendVoice;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
-import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.InlineQuery;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.inputmessagecontent.InputTextMessageContent;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResult;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.InlineQueryResultArticle;
+import org.telegram.telegrambots.meta.api.objects.inlinequery.result.cached.InlineQueryResultCachedAudio;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 
 import java.io.File;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Component
 public class TelegramBotService extends TelegramLongPollingBot {
 
+    private static final String PROFILE_CALLBACK_PREFIX = "profile:";
+    private static final String FORMAT_CALLBACK_PREFIX = "format:";
+    // again:FORMAT:PROFILE:VIDEO_ID[:START-END]
+    private static final String ANOTHER_FORMAT_CALLBACK_PREFIX = "again:";
+    private static final int MAX_CALLBACK_DATA_BYTES = 64;
+
     @Value("${specialUsername}")
     private String specialUsername;
 
     private final BotProperties botProperties;
     private final YouTubeUrlValidator urlValidator;
     private final ConversionOrchestrationService orchestrationService;
-
-
-    public TelegramBotService(BotProperties botProperties, YouTubeUrlValidator urlValidator, ConversionOrchestrationService orchestrationService) {
-        super(botProperties.getToken());
+    private final OutboundMessageDispatcher dispatcher;
+    private final VideoCacheService videoCache;
+    private final MetadataPrefetcher metadataPrefetcher;
+    private final PipelineMetrics pipelineMetrics;
+    private final TaskTracer taskTracer;
+    private final ResourceLimiter resourceLimiter;
+    private final ChatPreferences chatPreferences;
+    private final UpdateRecorder updateRecorder;
+
+
+    public TelegramBotService(BotProperties botProperties, YouTubeUrlValidator urlValidator,
+                              ConversionOrchestrationService orchestrationService, OutboundMessageDispatcher dispatcher,
+                              VideoCacheService videoCache, @Lazy MetadataPrefetcher metadataPrefetcher,
+                              PipelineMetrics pipelineMetrics, TaskTracer taskTracer,
+                              ResourceLimiter resourceLimiter, ChatPreferences chatPreferences,
+                              UpdateRecorder updateRecorder) {
+        super(botOptions(botProperties), botProperties.getToken());
         this.botProperties = botProperties;
         this.urlValidator = urlValidator;
         this.orchestrationService = orchestrationService;
+        this.dispatcher = dispatcher;
+        this.videoCache = videoCache;
+        this.metadataPrefetcher = metadataPrefetcher;
+        this.pipelineMetrics = pipelineMetrics;
+        this.taskTracer = taskTracer;
+        this.resourceLimiter = resourceLimiter;
+        this.chatPreferences = chatPreferences;
+        this.updateRecorder = updateRecorder;
         log.info("TelegramBotService initialized with username: {}", botProperties.getUsername());
     }
 
+    @PostConstruct
+    public void startDispatcher() {
+        dispatcher.start(this);
+    }
+
+    private static DefaultBotOptions botOptions(BotProperties botProperties) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        if (botProperties.getApiBaseUrl() != null && !botProperties.getApiBaseUrl().isBlank()) {
+            options.setBaseUrl(botProperties.getApiBaseUrl());
+        }
+        return options;
+    }
+
     @Override
     public String getBotUsername() {
         return botProperties.getUsername();
@@ -47,36 +125,135 @@ public class TelegramBotService extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
+        pipelineMetrics.recordFirstUpdate();
+        updateRecorder.record(update);
+        // Tasks started from here inherit the MDC, so their log lines carry the chat id too
+        Long chatId = chatIdOf(update);
+        if (chatId != null) {
+            MDC.put(TaskContext.CHAT_ID_KEY, chatId.toString());
+        }
+        try {
+            handleUpdate(update);
+        } finally {
+            MDC.remove(TaskContext.CHAT_ID_KEY);
+        }
+    }
+
+    private static Long chatIdOf(Update update) {
+        if (update.hasMessage()) {
+            return update.getMessage().getChatId();
+        }
+        if (update.hasCallbackQuery()) {
+            return update.getCallbackQuery().getFrom().getId();
+        }
+        if (update.hasInlineQuery()) {
+            return update.getInlineQuery().getFrom().getId();
+        }
+        return null;
+    }
+
+    private void handleUpdate(Update update) {
         if (update.hasMessage() && update.getMessage().hasText()) {
             String messageText = update.getMessage().getText();
             Long chatId = update.getMessage().getChatId();
             String userName = update.getMessage().getFrom().getFirstName();
 
-            log.info("Received message from {}: {}", userName, messageText);
+            // Debug only: the full text of every update is too costly to log at volume
+            log.debug("Received message from {}: {}", userName, messageText);
 
             // Handle commands
             if (messageText.startsWith("/")) {
                 handleCommand(chatId, messageText, userName);
-            } else if (urlValidator.isValidYouTubeUrl(messageText)) {
-                handleYouTubeUrl(chatId, messageText);
+                return;
+            }
+
+            YouTubeUrl youTubeUrl = urlValidator.parse(messageText);
+            if (youTubeUrl != null) {
+                // Hand yt-dlp the plain watch URL: no playlist, no tracking parameters
+                handleYouTubeUrl(chatId, youTubeUrl.canonicalUrl(), new ConversionOptions(
+                        chatPreferences.getProfile(chatId), null, chatPreferences.getFormat(chatId)));
             } else {
                 sendMessage(chatId, "❌ Invalid YouTube URL!\n\n" +
                         "Please send a valid YouTube URL like:\n" +
                         "• https://www.youtube.com/watch?v=VIDEO_ID\n" +
-                        "• https://youtu. be/VIDEO_ID");
+                        "• https://youtu.be/VIDEO_ID\n" +
+                        "• https://youtube.com/shorts/VIDEO_ID");
             }
+        } else if (update.hasInlineQuery()) {
+            handleInlineQuery(update.getInlineQuery());
+        } else if (update.hasCallbackQuery()) {
+            handleCallbackQuery(update.getCallbackQuery());
         }
     }
 
+    /**
+     * Inline mode (@bot &lt;url&gt;): answer with the cached audio if we already have it,
+     * otherwise start a speculative metadata fetch so the real request is a cache hit.
+     */
+    private void handleInlineQuery(InlineQuery inlineQuery) {
+        String query = inlineQuery.getQuery() == null ? "" : inlineQuery.getQuery().trim();
+        if (!urlValidator.isValidYouTubeUrl(query)) {
+            return;
+        }
+
+        String cacheKey = videoCache.keyFor(query);
+        InlineQueryResult result;
+        int cacheTime;
+
+        CachedAudio cachedAudio = videoCache.getAudio(cacheKey);
+        if (cachedAudio != null) {
+            result = InlineQueryResultCachedAudio.builder()
+                    .id("audio:" + cacheKey)
+                    .audioFileId(cachedAudio.getFileId())
+                    .caption("🎵 " + cachedAudio.getTitle())
+                    .build();
+            cacheTime = 300;
+        } else {
+            VideoMetadata metadata = videoCache.getMetadata(cacheKey);
+            if (metadata == null) {
+                metadataPrefetcher.prefetch(query);
+            }
+            result = InlineQueryResultArticle.builder()
+                    .id("convert:" + cacheKey)
+                    .title(metadata != null ? "🎵 " + metadata.getTitle() : "🎵 Convert to MP3")
+                    .description(metadata != null
+                            ? metadata.getUploader() + " • " + formatDuration(metadata.getDuration())
+                            : "Send this link to the bot")
+                    .inputMessageContent(InputTextMessageContent.builder().messageText(query).build())
+                    .build();
+            cacheTime = 0;  // Let the next keystroke pick up the prefetched metadata
+        }
+
+        AnswerInlineQuery answer = AnswerInlineQuery.builder()
+                .inlineQueryId(inlineQuery.getId())
+                .results(List.of(result))
+                .cacheTime(cacheTime)
+                .build();
+
+        dispatcher.submit(inlineQuery.getFrom().getId(), OutboundMessageDispatcher.Priority.HIGH,
+                        sender -> sender.execute(answer))
+                .whenComplete((ok, ex) -> {
+                    if (ex != null) {
+                        log.debug("Failed to answer inline query {}: {}", inlineQuery.getId(), ex.getMessage());
+                    }
+                });
+    }
+
     private void handleCommand(Long chatId, String command, String userName) {
         userName = (Objects.equals(userName, specialUsername)) ? "Gulim !" : userName;
-        switch (command.toLowerCase()) {
+        String[] args = command.trim().split("\\s+");
+        switch (args[0].toLowerCase()) {
             case "/start" -> sendMessage(chatId,
                     "👋 Hello " + userName + "!\n\n" +
                             "Welcome to YouTube to MP3 Converter Bot! 🎵\n\n" +
                             "Simply send me a YouTube URL and I'll convert it to MP3 for you!\n\n" +
                             "Commands:\n" +
                             "/help - Show help message\n" +
+                            "/profile - Choose normalization, silence trimming or speech mode\n" +
+                            "/format - Choose MP3 quality, voice note or M4A\n" +
+                            "/clip URL 1:30-2:45 - Convert only part of a video\n" +
+                            "/status - Show your conversions\n" +
+                            "/cancel - Stop your running conversions\n" +
                             "/about - About this bot");
 
             case "/help" -> sendMessage(chatId,
@@ -87,7 +264,9 @@ public class TelegramBotService extends TelegramLongPollingBot {
                             "4. Download your MP3 file!\n\n" +
                             "Supported formats:\n" +
                             "• https://www.youtube.com/watch?v=VIDEO_ID\n" +
-                            "• https://youtu.be/VIDEO_ID\n\n" +
+                            "• https://youtu.be/VIDEO_ID\n" +
+                            "• https://youtube.com/shorts/VIDEO_ID\n" +
+                            "• music.youtube.com and m.youtube.com links\n\n" +
                             "⚠️ Note: Files larger than 50MB cannot be sent via Telegram.");
 
             case "/about" -> sendMessage(chatId,
@@ -100,100 +279,520 @@ public class TelegramBotService extends TelegramLongPollingBot {
                             "• FFmpeg\n\n" +
                             "Developer: @just_search");
 
+            case "/profile" -> sendProfileMenu(chatId);
+
+            case "/format" -> sendFormatMenu(chatId);
+
+            case "/clip" -> handleClip(chatId, args);
+
+            case "/status" -> sendMessage(chatId, formatTaskStatus(orchestrationService.getTasks(chatId)));
+
+            case "/cancel" -> {
+                int cancelled = orchestrationService.cancelTasks(chatId);
+                sendMessage(chatId, cancelled > 0
+                        ? "🛑 Cancelled " + cancelled + " conversion(s)."
+                        : "Nothing to cancel.");
+            }
+
             default -> sendMessage(chatId, "Unknown command. Type /help for available commands.");
         }
     }
 
-    private void handleYouTubeUrl(Long chatId, String url) {
-        log.info("Processing YouTube URL: {}", url);
+    /**
+     * /clip URL START-END: download and convert only that part of the video
+     */
+    private void handleClip(Long chatId, String[] args) {
+        YouTubeUrl youTubeUrl = args.length == 3 ? urlValidator.parse(args[1]) : null;
+        AudioSection section = args.length == 3 ? AudioSection.parse(args[2]) : null;
+        if (youTubeUrl == null || section == null) {
+            sendMessage(chatId, "Usage: /clip URL START-END\n\n" +
+                    "For example:\n/clip https://youtu.be/VIDEO_ID 1:30-2:45");
+            return;
+        }
+        handleYouTubeUrl(chatId, youTubeUrl.canonicalUrl(), new ConversionOptions(
+                chatPreferences.getProfile(chatId), section, chatPreferences.getFormat(chatId)));
+    }
 
-        try {
-            // Step 1: Fetch video metadata
-            sendMessage(chatId, "🔍 Fetching video information...");
-            VideoMetadata metadata = orchestrationService.getVideoInfo(url);
-
-            // Step 2: Show video info
-            String videoInfo = String.format(
-                    "✅ Video found!\n\n" +
-                            "🎬 Title: %s\n" +
-                            "👤 Channel: %s\n" +
-                            "⏱ Duration: %s\n\n" +
-                            "⏳ Starting conversion...",
-                    metadata.getTitle(),
-                    metadata.getUploader(),
-                    formatDuration(metadata.getDuration())
-            );
-            sendMessage(chatId, videoInfo);
-
-            // Step 3: Start async processing
-            orchestrationService.processVideo(url, chatId)
-                    .thenAccept(task -> handleConversionResult(chatId, task))
-                    .exceptionally(ex -> {
-                        log.error("Error processing video", ex);
-                        sendMessage(chatId, "❌ An error occurred: " + ex.getMessage());
-                        return null;
-                    });
+    private void sendProfileMenu(Long chatId) {
+        AudioProfile current = chatPreferences.getProfile(chatId);
+        SendMessage menu = SendMessage.builder()
+                .chatId(chatId.toString())
+                .text(profileMenuText(current))
+                .replyMarkup(profileKeyboard(current))
+                .build();
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.NORMAL, sender -> sender.execute(menu))
+                .whenComplete((ok, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send profile menu to chatId: {}", chatId, ex);
+                    }
+                });
+    }
+
+    private void handleCallbackQuery(CallbackQuery callbackQuery) {
+        String data = callbackQuery.getData();
+        if (data == null || callbackQuery.getMessage() == null) {
+            return;
+        }
+        if (data.startsWith(PROFILE_CALLBACK_PREFIX)) {
+            handleProfileChoice(callbackQuery, data.substring(PROFILE_CALLBACK_PREFIX.length()));
+        } else if (data.startsWith(FORMAT_CALLBACK_PREFIX)) {
+            handleFormatChoice(callbackQuery, data.substring(FORMAT_CALLBACK_PREFIX.length()));
+        } else if (data.startsWith(ANOTHER_FORMAT_CALLBACK_PREFIX)) {
+            handleAnotherFormat(callbackQuery, data.substring(ANOTHER_FORMAT_CALLBACK_PREFIX.length()));
+        }
+    }
+
+    /**
+     * A profile button was pressed: store the choice and tick it in the menu
+     */
+    private void handleProfileChoice(CallbackQuery callbackQuery, String name) {
+        AudioProfile profile = enumValue(AudioProfile.class, name);
+        if (profile == null) {
+            return;
+        }
+
+        Long chatId = callbackQuery.getMessage().getChatId();
+        chatPreferences.setProfile(chatId, profile);
+        log.info("Chat {} switched to profile {}", chatId, profile);
+
+        AnswerCallbackQuery answer = AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQuery.getId())
+                .text("Profile: " + profile.getLabel())
+                .build();
+        EditMessageText edit = EditMessageText.builder()
+                .chatId(chatId.toString())
+                .messageId(callbackQuery.getMessage().getMessageId())
+                .text(profileMenuText(profile))
+                .replyMarkup(profileKeyboard(profile))
+                .build();
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.HIGH, sender -> sender.execute(answer));
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.NORMAL, sender -> sender.execute(edit))
+                .whenComplete((ok, ex) -> {
+                    if (ex != null) {
+                        log.debug("Failed to update profile menu in chatId {}: {}", chatId, ex.getMessage());
+                    }
+                });
+    }
+
+    private void sendFormatMenu(Long chatId) {
+        AudioFormat current = chatPreferences.getFormat(chatId);
+        SendMessage menu = SendMessage.builder()
+                .chatId(chatId.toString())
+                .text(formatMenuText(current))
+                .replyMarkup(formatKeyboard(current))
+                .build();
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.NORMAL, sender -> sender.execute(menu))
+                .whenComplete((ok, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to send format menu to chatId: {}", chatId, ex);
+                    }
+                });
+    }
+
+    /**
+     * A format button was pressed: store the choice and tick it in the menu
+     */
+    private void handleFormatChoice(CallbackQuery callbackQuery, String name) {
+        AudioFormat format = enumValue(AudioFormat.class, name);
+        if (format == null) {
+            return;
+        }
+
+        Long chatId = callbackQuery.getMessage().getChatId();
+        chatPreferences.setFormat(chatId, format);
+        log.info("Chat {} switched to format {}", chatId, format);
+
+        AnswerCallbackQuery answer = AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQuery.getId())
+                .text("Format: " + format.getLabel())
+                .build();
+        EditMessageText edit = EditMessageText.builder()
+                .chatId(chatId.toString())
+                .messageId(callbackQuery.getMessage().getMessageId())
+                .text(formatMenuText(format))
+                .replyMarkup(formatKeyboard(format))
+                .build();
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.HIGH, sender -> sender.execute(answer));
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.NORMAL, sender -> sender.execute(edit))
+                .whenComplete((ok, ex) -> {
+                    if (ex != null) {
+                        log.debug("Failed to update format menu in chatId {}: {}", chatId, ex.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * An "also as" button under a delivered file: make that format from the same source,
+     * which is usually still cached, so only the encode runs
+     */
+    private void handleAnotherFormat(CallbackQuery callbackQuery, String request) {
+        String[] parts = request.split(":");
+        if (parts.length < 3 || parts.length > 4) {
+            return;
+        }
+        AudioFormat format = enumValue(AudioFormat.class, parts[0]);
+        AudioProfile profile = enumValue(AudioProfile.class, parts[1]);
+        AudioSection section = parts.length == 4 ? AudioSection.parse(parts[3]) : null;
+        if (format == null || profile == null || !YouTubeUrlParser.isVideoId(parts[2])
+                || (parts.length == 4 && section == null)) {
+            return;
+        }
+
+        Long chatId = callbackQuery.getMessage().getChatId();
+        AnswerCallbackQuery answer = AnswerCallbackQuery.builder()
+                .callbackQueryId(callbackQuery.getId())
+                .text(format.getLabel())
+                .build();
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.HIGH, sender -> sender.execute(answer));
+        handleYouTubeUrl(chatId, new YouTubeUrl(parts[2], null, 0).canonicalUrl(),
+                new ConversionOptions(profile, section, format));
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        return Arrays.stream(type.getEnumConstants())
+                .filter(candidate -> candidate.name().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String formatMenuText(AudioFormat current) {
+        return "📦 Output format: " + current.getLabel() + "\n\n" +
+                "🎵 MP3 - standard quality, plays everywhere\n" +
+                "💾 MP3 128k - smaller files\n" +
+                "💿 MP3 320k - highest MP3 quality\n" +
+                "🎙 Voice note - Opus, plays right in the chat\n" +
+                "🎧 M4A - YouTube's original AAC audio, no re-encoding";
+    }
+
+    private InlineKeyboardMarkup formatKeyboard(AudioFormat current) {
+        List<InlineKeyboardButton> buttons = Arrays.stream(AudioFormat.values())
+                .map(format -> InlineKeyboardButton.builder()
+                        .text(format == current ? "✅ " + format.getLabel() : format.getLabel())
+                        .callbackData(FORMAT_CALLBACK_PREFIX + format.name())
+                        .build())
+                .toList();
+        return InlineKeyboardMarkup.builder()
+                .keyboardRow(buttons.subList(0, 3))
+                .keyboardRow(buttons.subList(3, buttons.size()))
+                .build();
+    }
+
+    /**
+     * Buttons under a delivered file for the other formats of the same audio;
+     * null when the video ID isn't known or the request doesn't fit in callback data
+     */
+    private InlineKeyboardMarkup otherFormatsKeyboard(String url, ConversionOptions options) {
+        String videoId = videoCache.keyFor(url);
+        if (!YouTubeUrlParser.isVideoId(videoId)) {
+            return null;
+        }
+        String suffix = ":" + options.profile().name() + ":" + videoId + (options.section() != null
+                ? ":" + options.section().startSeconds() + "-" + options.section().endSeconds()
+                : "");
+        if (ANOTHER_FORMAT_CALLBACK_PREFIX.length() + AudioFormat.MP3_128.name().length() + suffix.length()
+                > MAX_CALLBACK_DATA_BYTES) {
+            return null;
+        }
+        List<InlineKeyboardButton> buttons = Arrays.stream(AudioFormat.values())
+                .filter(format -> format != options.format())
+                .map(format -> InlineKeyboardButton.builder()
+                        .text(format.getLabel())
+                        .callbackData(ANOTHER_FORMAT_CALLBACK_PREFIX + format.name() + suffix)
+                        .build())
+                .toList();
+        return InlineKeyboardMarkup.builder()
+                .keyboardRow(buttons.subList(0, 2))
+                .keyboardRow(buttons.subList(2, buttons.size()))
+                .build();
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to process YouTube URL: {}", url, e);
-            sendMessage(chatId, "❌ Failed to fetch video information.  Please check the URL and try again.");
+    private String profileMenuText(AudioProfile current) {
+        return "🎛 Output profile: " + current.getLabel() + "\n\n" +
+                "🎵 Standard - as is\n" +
+                "🔊 Normalized - consistent loudness (EBU R128)\n" +
+                "✂️ Trim silence - no silent intro, pauses over 2 s shortened (not for podcasts)\n" +
+                "🎙 Speech - mono, small files for podcasts and lectures";
+    }
+
+    private InlineKeyboardMarkup profileKeyboard(AudioProfile current) {
+        List<InlineKeyboardButton> buttons = Arrays.stream(AudioProfile.values())
+                .map(profile -> InlineKeyboardButton.builder()
+                        .text(profile == current ? "✅ " + profile.getLabel() : profile.getLabel())
+                        .callbackData(PROFILE_CALLBACK_PREFIX + profile.name())
+                        .build())
+                .toList();
+        return InlineKeyboardMarkup.builder()
+                .keyboardRow(buttons.subList(0, 2))
+                .keyboardRow(buttons.subList(2, buttons.size()))
+                .build();
+    }
+
+    private String describeOptions(ConversionOptions options) {
+        StringBuilder text = new StringBuilder();
+        if (options.profile() != AudioProfile.STANDARD) {
+            text.append("🎛 Profile: ").append(options.profile().getLabel()).append("\n");
         }
+        if (options.section() != null) {
+            long start = options.section().startSeconds();
+            text.append("✂️ Clip: ").append(start == 0 ? "0:00" : formatDuration(start))
+                    .append(" - ").append(formatDuration(options.section().endSeconds())).append("\n");
+        }
+        if (options.format() != AudioFormat.MP3) {
+            text.append("📦 Format: ").append(options.format().getLabel()).append("\n");
+        }
+        return text.toString();
+    }
+
+    private void handleYouTubeUrl(Long chatId, String url, ConversionOptions options) {
+        log.debug("Processing YouTube URL: {} ({})", url, options);
+
+        if (!sendCachedAudio(chatId, url, options)) {
+            fetchAndConvert(chatId, url, options);
+        }
+    }
+
+    private void fetchAndConvert(Long chatId, String url, ConversionOptions options) {
+        // Step 1: Fetch video metadata, off this thread: yt-dlp and its retries can take a while
+        dispatcher.sendStatus(chatId, "🔍 Fetching video information...");
+        orchestrationService.getVideoInfoAsync(url)
+                .thenAccept(metadata -> {
+                    // Step 2: Show video info
+                    String videoInfo = String.format(
+                            "✅ Video found!\n\n" +
+                                    "🎬 Title: %s\n" +
+                                    "👤 Channel: %s\n" +
+                                    "⏱ Duration: %s\n%s\n" +
+                                    "⏳ Starting conversion...",
+                            metadata.getTitle(),
+                            metadata.getUploader(),
+                            formatDuration(metadata.getDuration()),
+                            describeOptions(options)
+                    );
+                    dispatcher.sendStatus(chatId, videoInfo);
+
+                    // Step 3: Start async processing
+                    startConversion(chatId, url, options);
+                })
+                .exceptionally(ex -> {
+                    log.error("Failed to process YouTube URL: {}", url, ex);
+                    dispatcher.clearStatus(chatId);
+                    sendMessage(chatId, "❌ Failed to fetch video information.  Please check the URL and try again.");
+                    return null;
+                });
+    }
+
+    /**
+     * Run a conversion a previous instance handed off on shutdown
+     */
+    public void resumeConversion(Long chatId, String url, ConversionOptions options) {
+        dispatcher.sendStatus(chatId, "♻️ The bot restarted while your video was waiting, converting it now...");
+        startConversion(chatId, url, options);
+    }
+
+    private void startConversion(Long chatId, String url, ConversionOptions options) {
+        ConversionTask task = orchestrationService.createTask(url, chatId, options);
+        orchestrationService.processVideo(task)
+                .thenAccept(result -> handleConversionResult(chatId, result))
+                .exceptionally(ex -> {
+                    if (ex.getCause() instanceof TaskCancelledException) {
+                        // Handed off on shutdown; the next instance picks it up and says so
+                        log.info("[{}] Conversion handed off", task.getTaskId());
+                        dispatcher.clearStatus(chatId);
+                        return null;
+                    }
+                    log.error("Error processing video", ex);
+                    if (orchestrationService.isInFlight(task)) {
+                        orchestrationService.cleanupTask(task);
+                    }
+                    dispatcher.clearStatus(chatId);
+                    sendMessage(chatId, "❌ An error occurred: " + ex.getMessage());
+                    return null;
+                });
     }
 
 
     private void handleConversionResult(Long chatId, ConversionTask task) {
+        // Runs after the worker has cleared its task context; keep the upload's log lines attributed
+        try (MDC.MDCCloseable ignored = MDC.putCloseable(TaskContext.TASK_ID_KEY, task.getTaskId())) {
+            deliverResult(chatId, task);
+        }
+    }
+
+    private void deliverResult(Long chatId, ConversionTask task) {
         if (task.getStatus() == ConversionStatus.COMPLETED) {
             log.info("[{}] Conversion successful, uploading file", task.getTaskId());
 
-            sendMessage(chatId, "✅ Conversion completed!  Uploading.. .");
-
-            // Upload the MP3 file
-            File mp3File = new File(task.getConvertedFilePath());
-            sendAudioFile(chatId, mp3File, task.getMetadata());
-
-            // Cleanup
-            orchestrationService.cleanupTask(task);
+            dispatcher.sendStatus(chatId, "✅ Conversion completed! Uploading...");
+
+            try {
+                // Upload the file
+                task.setStatus(ConversionStatus.UPLOADING);
+                taskTracer.enter(task, TaskPhase.UPLOAD);
+                File outputFile = new File(task.getConvertedFilePath());
+                sendAudioFile(chatId, outputFile, task);
+            } finally {
+                // Cleanup; also ends the task's in-flight time, which shutdown waits on
+                orchestrationService.cleanupTask(task);
+            }
 
         } else if (task.getStatus() == ConversionStatus. FAILED) {
             log.error("[{}] Conversion failed: {}", task.getTaskId(), task.getErrorMessage());
+            dispatcher.clearStatus(chatId);
             sendMessage(chatId, "❌ Conversion failed!\n\n" +
                     "Unable to process the request for the URL: " + task.getYoutubeUrl());
+
+        } else if (task.getStatus() == ConversionStatus.CANCELLED) {
+            // /cancel already replied; just drop the progress message
+            log.info("[{}] Conversion cancelled", task.getTaskId());
+            dispatcher.clearStatus(chatId);
         }
     }
 
-    private void sendAudioFile(Long chatId, File audioFile, VideoMetadata metadata) {
-        try {
-            SendAudio sendAudio = SendAudio.builder()
-                    .chatId(chatId. toString())
-                    .audio(new InputFile(audioFile))
-                    .title(metadata.getTitle())
-                    .performer(metadata.getUploader())
-                    .caption("🎵 " + metadata.getTitle())
-                    .build();
+    /**
+     * Re-send a previously uploaded file by its file_id, without waiting for the dispatcher.
+     * If Telegram rejects the file_id, the entry is evicted and the video is converted again.
+     * @return true if there was a cached file to send
+     */
+    private boolean sendCachedAudio(Long chatId, String url, ConversionOptions options) {
+        String cacheKey = videoCache.keyFor(url) + options.cacheKeySuffix();
+        CachedAudio cachedAudio = videoCache.getAudio(cacheKey);
+        if (cachedAudio == null) {
+            return false;
+        }
+
+        OutboundMessageDispatcher.TelegramCall<Message> send = deliveryCall(chatId,
+                new InputFile(cachedAudio.getFileId()), cachedAudio.getTitle(), cachedAudio.getPerformer(), null,
+                options.format(), otherFormatsKeyboard(url, options));
+
+        dispatcher.submit(chatId, OutboundMessageDispatcher.Priority.HIGH, send)
+                .whenComplete((sent, ex) -> {
+                    if (ex == null) {
+                        log.info("Sent cached audio {} to chatId: {}", cacheKey, chatId);
+                        return;
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    log.warn("Cached file_id for {} was rejected, converting again: {}", cacheKey, cause.getMessage());
+                    videoCache.evictAudio(cacheKey);
+                    fetchAndConvert(chatId, url, options);
+                });
+        return true;
+    }
 
-            execute(sendAudio);
+    private void sendAudioFile(Long chatId, File audioFile, ConversionTask task) {
+        VideoMetadata metadata = task.getMetadata();
+        try {
+            ConversionOptions options = task.getOptions() != null ? task.getOptions() : ConversionOptions.DEFAULT;
+            File thumbnail = task.getThumbnailPath() != null ? new File(task.getThumbnailPath()) : null;
+            OutboundMessageDispatcher.TelegramCall<Message> send = deliveryCall(chatId,
+                    new InputFile(audioFile, displayName(audioFile, task)),
+                    metadata.getTitle(), metadata.getUploader(),
+                    thumbnail != null && thumbnail.exists() ? new InputFile(thumbnail) : null,
+                    options.format(), otherFormatsKeyboard(task.getYoutubeUrl(), options));
+
+            // Audio goes ahead of queued status chatter; wait for it so "Done" follows the file
+            Message sent = resourceLimiter.withPermit(ResourceLimiter.Resource.UPLOAD,
+                    () -> pipelineMetrics.timeStage(PipelineMetrics.UPLOAD, () -> dispatcher.submitUpload(chatId, send).join()));
             log.info("Audio file sent successfully to chatId: {}", chatId);
 
+            String fileId = sentFileId(sent);
+            if (fileId != null) {
+                String cacheKey = videoCache.keyFor(task.getYoutubeUrl()) + options.cacheKeySuffix();
+                videoCache.putAudio(cacheKey, CachedAudio.builder()
+                        .fileId(fileId)
+                        .title(metadata.getTitle())
+                        .performer(metadata.getUploader())
+                        .build());
+            }
+
+            task.setStatus(ConversionStatus.COMPLETED);
+            dispatcher.clearStatus(chatId);
             sendMessage(chatId, "✅ Done! Enjoy your music!  🎵");
 
-        } catch (TelegramApiException e) {
-            log. error("Failed to send audio file to chatId: {}", chatId, e);
+        } catch (CompletionException e) {
+            log. error("Failed to send audio file to chatId: {}", chatId, e.getCause());
+            task.setStatus(ConversionStatus.FAILED);
+            task.setErrorMessage("Upload failed: " + e.getCause().getMessage());
+            dispatcher.clearStatus(chatId);
             sendMessage(chatId, "❌ Failed to upload the audio file. It might be too large.");
         }
     }
 
-    public void sendMessage(Long chatId, String text) {
-        SendMessage message = SendMessage. builder()
-                .chatId(chatId. toString())
-                .text(text)
+    // The file on disk starts with the task id; the chat sees just the title
+    private static String displayName(File audioFile, ConversionTask task) {
+        String prefix = task.getTaskId() + "_";
+        String name = audioFile.getName();
+        return name.startsWith(prefix) ? name.substring(prefix.length()) : name;
+    }
+
+    /**
+     * SendVoice for voice notes, so they play inline; SendAudio with title and cover for the rest
+     */
+    private OutboundMessageDispatcher.TelegramCall<Message> deliveryCall(Long chatId, InputFile file, String title,
+                                                                         String performer, InputFile thumbnail,
+                                                                         AudioFormat format,
+                                                                         InlineKeyboardMarkup keyboard) {
+        if (format.isVoice()) {
+            SendVoice sendVoice = SendVoice.builder()
+                    .chatId(chatId.toString())
+                    .voice(file)
+                    .caption("🎙 " + title)
+                    .replyMarkup(keyboard)
+                    .build();
+            return sender -> sender.execute(sendVoice);
+        }
+        SendAudio sendAudio = SendAudio.builder()
+                .chatId(chatId.toString())
+                .audio(file)
+                .title(title)
+                .performer(performer)
+                .caption("🎵 " + title)
+                .thumbnail(thumbnail)
+                .replyMarkup(keyboard)
                 .build();
+        return sender -> sender.execute(sendAudio);
+    }
 
-        try {
-            execute(message);
-            log.debug("Message sent to {}: {}", chatId, text);
-        } catch (TelegramApiException e) {
-            log.error("Failed to send message to {}: {}", chatId, e. getMessage());
+    private static String sentFileId(Message sent) {
+        if (sent == null) {
+            return null;
+        }
+        if (sent.hasVoice()) {
+            return sent.getVoice().getFileId();
+        }
+        return sent.hasAudio() ? sent.getAudio().getFileId() : null;
+    }
+
+    public void sendMessage(Long chatId, String text) {
+        dispatcher.sendMessage(chatId, text);
+    }
+
+    private String formatTaskStatus(List<ConversionTask> tasks) {
+        if (tasks.isEmpty()) {
+            return "You have no recent conversions.";
+        }
+        StringBuilder text = new StringBuilder("📋 Your conversions:\n");
+        LocalDateTime now = LocalDateTime.now();
+        for (ConversionTask task : tasks) {
+            String name = task.getMetadata() != null ? task.getMetadata().getTitle() : task.getYoutubeUrl();
+            LocalDateTime end = TaskRegistry.isActive(task) || task.getCompletedAt() == null ? now : task.getCompletedAt();
+            long seconds = Math.max(1, Duration.between(task.getCreatedAt(), end).toSeconds());
+            text.append("\n").append(statusLabel(task.getStatus()))
+                    .append(" — ").append(name)
+                    .append(" (").append(formatDuration(seconds)).append(")");
         }
+        return text.toString();
+    }
+
+    private String statusLabel(ConversionStatus status) {
+        return switch (status) {
+            case PENDING -> "⏳ Queued";
+            case DOWNLOADING -> "⬇️ Downloading";
+            case CONVERTING -> "🔄 Converting";
+            case UPLOADING -> "📤 Uploading";
+            case COMPLETED -> "✅ Done";
+            case FAILED -> "❌ Failed";
+            case CANCELLED -> "🛑 Cancelled";
+        };
     }
 
     private String formatDuration(Long seconds) {
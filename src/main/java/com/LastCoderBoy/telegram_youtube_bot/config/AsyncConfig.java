@@ -1,31 +1,69 @@
 package com.LastCoderBoy.telegram_youtube_bot.config;
 
 
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.PriorityConversionExecutor;
+import com.LastCoderBoy.telegram_youtube_bot.util.MdcTaskDecorator;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Configuration
 @EnableAsync
+@RequiredArgsConstructor
 public class AsyncConfig implements AsyncConfigurer {
 
-    @Override
-    public Executor getAsyncExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("async-conversion-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
+    private final AsyncProperties properties;
+
+    @Bean
+    public ConversionExecutorStats conversionExecutorStats() {
+        return new ConversionExecutorStats();
+    }
+
+    @Bean(name = "conversionExecutor")
+    public PriorityConversionExecutor conversionExecutor() {
+        ConversionExecutorStats stats = conversionExecutorStats();
+
+        MdcTaskDecorator mdc = new MdcTaskDecorator();
+
+        PriorityConversionExecutor executor = new PriorityConversionExecutor();
+        // The chat id logged with the request follows the task onto its worker
+        executor.setTaskDecorator(runnable -> stats.decorate(mdc.decorate(runnable)));
+        executor.setAwaitTerminationMillis(TimeUnit.SECONDS.toMillis(properties.getAwaitTerminationSeconds()));
+        stats.attach(executor);
+
+        if (properties.getMode() == AsyncProperties.Mode.VIRTUAL) {
+            executor.setThreadFactory(Thread.ofVirtual().name("virtual-conversion-", 0).factory());
+            executor.initialize();
+
+            log.info("Async executor initialized with a virtual thread per task");
+            return executor;
+        }
+
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setFastLaneWorkers(properties.getFastLaneWorkers());
+        executor.setFastLaneMaxCost(properties.getFastLaneMaxSeconds());
+        // Cost is in seconds of audio
+        executor.setAgingNanosPerCost(TimeUnit.MILLISECONDS.toNanos(properties.getAgingMillisPerAudioMinute()) / 60);
         executor.initialize();
 
-        log.info("Async executor initialized with core pool size: 2, max pool size: 5");
+        log.info("Async executor initialized with core pool size: {}, max pool size: {}, queue capacity: {}, "
+                        + "fast lane: {} worker(s) for videos up to {} s",
+                properties.getCorePoolSize(), properties.getMaxPoolSize(), properties.getQueueCapacity(),
+                properties.getFastLaneWorkers(), properties.getFastLaneMaxSeconds());
         return executor;
     }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return conversionExecutor();
+    }
 }
@@ -0,0 +1,38 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "async")
+public class AsyncProperties {
+
+    public enum Mode {
+        /** Bounded pool of platform threads, pool size limits concurrency */
+        PLATFORM,
+        /** A virtual thread per task, concurrency limited by the resource semaphores only */
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.PLATFORM;
+    private int corePoolSize = 2;
+    private int maxPoolSize = 5;
+    private int queueCapacity = 100;
+    private int awaitTerminationSeconds = 60;
+
+    /** Platform workers on top of the pool that only take videos up to fastLaneMaxSeconds long */
+    private int fastLaneWorkers = 1;
+    private int fastLaneMaxSeconds = 600;
+    /** How much longer a video may be held back per minute of audio it has over another; 0 is FIFO */
+    private long agingMillisPerAudioMinute = 6000;
+
+    private int maxConcurrentDownloads = 8;
+    /** 0 means one per available processor */
+    private int maxConcurrentConversions = 0;
+    private int maxConcurrentUploads = 4;
+    /** Pinned virtual threads blocked longer than this are reported */
+    private int pinnedThresholdMillis = 20;
+}
@@ -3,25 +3,32 @@ package com.LastCoderBoy.telegram_youtube_bot.config;
 
 import com.LastCoderBoy.telegram_youtube_bot.bot.TelegramBotService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.generics.BotSession;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+/**
+ * Registers the bot once the application is ready rather than on context refresh:
+ * the web server and the other listeners are up by then, and an AOT/CDS training run
+ * ({@code -Dspring.context.exit=onRefresh}) exits before anything talks to Telegram.
+ */
 @Slf4j
 @Component
 public class BotInitializer {
 
     private final TelegramBotService bot;
     private boolean botRegistered = false;
+    private volatile BotSession session;
 
     public BotInitializer(TelegramBotService bot) {
         this.bot = bot;
     }
 
-    @EventListener({ContextRefreshedEvent.class})
+    @EventListener({ApplicationReadyEvent.class})
     public void init() throws TelegramApiException {
         if (botRegistered) {
             log.info("Bot already registered, skipping initialization");
@@ -31,7 +38,7 @@ public class BotInitializer {
         log.info("Initializing Telegram Bot...");
         TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
         try {
-            telegramBotsApi.registerBot(bot);
+            session = telegramBotsApi.registerBot(bot);
             botRegistered = true;
             log.info("Telegram Bot registered successfully: @{}", bot.getBotUsername());
         } catch (TelegramApiException e) {
@@ -39,4 +46,15 @@ public class BotInitializer {
             throw e;
         }
     }
+
+    /**
+     * Stop polling for updates; called first on shutdown so no new work comes in while it drains
+     */
+    public void stopPolling() {
+        BotSession current = session;
+        if (current != null && current.isRunning()) {
+            current.stop();
+            log.info("Stopped polling Telegram for updates");
+        }
+    }
 }
@@ -11,4 +11,6 @@ import org.springframework.context.annotation.Configuration;
 public class BotProperties {
     private String username;
     private String token;
+    /** Bot API base URL, e.g. a local stub for load tests. Defaults to api.telegram.org when empty */
+    private String apiBaseUrl;
 }
@@ -0,0 +1,28 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private int metadataMaxEntries = 1000;
+    private int metadataTtlMinutes = 60;
+    private int audioMaxEntries = 5000;
+    private int audioTtlHours = 24;
+    private int prefetchWorkers = 2;
+    private int prefetchQueueCapacity = 32;
+    private boolean thumbnailsEnabled = true;
+    private String thumbnailBaseUrl = "https://i.ytimg.com/vi";
+    private int thumbnailMaxEntries = 2000;
+    private int thumbnailTtlHours = 24;
+    private int thumbnailTimeoutSeconds = 5;
+    /** Keep downloaded source audio so other formats of the same video skip the download */
+    private boolean sourceEnabled = true;
+    private int sourceMaxEntries = 64;
+    private long sourceMaxBytes = 2L * 1024 * 1024 * 1024;
+    private int sourceTtlMinutes = 30;
+}
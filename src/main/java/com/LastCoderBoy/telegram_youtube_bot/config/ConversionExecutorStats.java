@@ -0,0 +1,57 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.PriorityConversionExecutor;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Activity of the conversion executor in either execution mode.
+ * Active tasks are counted by decorating each task; the queue only exists in platform mode.
+ */
+public class ConversionExecutorStats implements TaskDecorator {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile PriorityConversionExecutor executor;
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return () -> {
+            active.incrementAndGet();
+            try {
+                runnable.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        };
+    }
+
+    void attach(PriorityConversionExecutor executor) {
+        this.executor = executor;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getQueueSize() {
+        PriorityConversionExecutor current = executor;
+        return current != null ? current.getQueueSize() : 0;
+    }
+
+    /**
+     * Queued tasks short enough for the fast lane
+     */
+    public int getShortQueueSize() {
+        PriorityConversionExecutor current = executor;
+        return current != null ? current.getShortQueueSize() : 0;
+    }
+
+    /**
+     * Queue capacity, or -1 when tasks are never queued (virtual mode)
+     */
+    public int getQueueCapacity() {
+        PriorityConversionExecutor current = executor;
+        return current != null ? current.getQueueCapacity() : -1;
+    }
+}
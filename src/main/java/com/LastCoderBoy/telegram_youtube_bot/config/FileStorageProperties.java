@@ -15,7 +15,15 @@ public class FileStorageProperties {
     private String basePath;
     private String downloadPath;
     private String convertedPath;
+    private String thumbnailPath;
+    private String sourcePath;
     private int cleanupDelayMinutes = 30;
+    /** RAM-backed scratch directory such as /dev/shm/telegram-bot, blank disables the memory tier */
+    private String memoryPath;
+    /** Tasks whose download plus MP3 are estimated below this use the memory tier */
+    private long memoryThresholdBytes = 40L * 1024 * 1024;
+    /** Total bytes reserved on the memory tier at once; keep it well below the tmpfs size */
+    private long memoryBudgetBytes = 512L * 1024 * 1024;
 
     public Path getDownloadDirectory() {
         return Paths.get(downloadPath);
@@ -24,4 +32,24 @@ public class FileStorageProperties {
     public Path getConvertedDirectory() {
         return Paths.get(convertedPath);
     }
+
+    public boolean isMemoryTierEnabled() {
+        return memoryPath != null && !memoryPath.isBlank();
+    }
+
+    public Path getMemoryDownloadDirectory() {
+        return Paths.get(memoryPath, "downloads");
+    }
+
+    public Path getMemoryConvertedDirectory() {
+        return Paths.get(memoryPath, "converted");
+    }
+
+    public Path getThumbnailDirectory() {
+        return thumbnailPath != null ? Paths.get(thumbnailPath) : Paths.get(basePath, "thumbnails");
+    }
+
+    public Path getSourceDirectory() {
+        return sourcePath != null ? Paths.get(sourcePath) : Paths.get(basePath, "sources");
+    }
 }
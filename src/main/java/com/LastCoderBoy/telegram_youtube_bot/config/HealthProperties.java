@@ -0,0 +1,20 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "health")
+public class HealthProperties {
+    /** Re-run the yt-dlp/ffmpeg version check when the last one is older than this */
+    private int toolCheckIntervalSeconds = 300;
+    /** Platform mode: out of service once the queue is this full (0-1) */
+    private double queueSaturationRatio = 0.9;
+    /** Virtual mode: out of service once this many tasks wait for download/conversion permits */
+    private int maxWaitingTasks = 50;
+    /** Re-check Telegram (getMe) when the last check is older than this */
+    private int telegramCheckIntervalSeconds = 60;
+}
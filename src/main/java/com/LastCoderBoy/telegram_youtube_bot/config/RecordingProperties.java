@@ -0,0 +1,21 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "recording")
+public class RecordingProperties {
+    private boolean enabled = false;
+    private String path;
+    private long maxBytes = 200L * 1024 * 1024;
+    /** Replace user and chat ids with stable pseudonyms and drop names */
+    private boolean anonymize = true;
+    /** Salt for the pseudonyms; blank picks a random one, so ids don't match across restarts */
+    private String salt = "";
+    /** Updates waiting to be written; more are dropped rather than slowing the bot down */
+    private int queueCapacity = 10000;
+}
@@ -0,0 +1,25 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "resilience")
+public class ResilienceProperties {
+    /** Attempts per call, including the first, for transient failures only */
+    private int metadataMaxAttempts = 3;
+    private int downloadMaxAttempts = 3;
+    private int conversionMaxAttempts = 2;
+    private long baseBackoffMillis = 1000;
+    private long maxBackoffMillis = 15000;
+
+    /** Circuit breakers: the failure rate is taken over the last window-size calls */
+    private int breakerWindowSize = 20;
+    private int breakerMinimumCalls = 10;
+    private double breakerFailureRateThreshold = 0.5;
+    private int breakerOpenSeconds = 30;
+    private int breakerHalfOpenCalls = 2;
+}
@@ -0,0 +1,20 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "shutdown")
+public class ShutdownProperties {
+    /** How long running conversions and uploads get to finish before their processes are killed */
+    private int drainTimeoutSeconds = 45;
+    /** Time for killed conversions to clean up after the drain deadline */
+    private int killGraceSeconds = 5;
+    /** Where jobs that didn't run here are written for the next instance */
+    private String checkpointPath;
+    /** Checkpoints older than this are dropped instead of resumed; users have moved on by then */
+    private int resumeMaxAgeMinutes = 60;
+}
@@ -0,0 +1,16 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tasks")
+public class TaskRegistryProperties {
+    private int expectedLiveTasks = 16384;
+    private long retentionMinutes = 15;
+    private long maxAgeMinutes = 360;
+    private long sweepIntervalSeconds = 60;
+}
@@ -0,0 +1,19 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "telegram.rate-limit")
+public class TelegramRateLimitProperties {
+    private double globalPerSecond = 30;
+    private double perChatPerSecond = 1;
+    private int perChatBurst = 1;
+    private int maxRetries = 3;
+    private int workers = 4;
+    /** Separate workers for file uploads, so large uploads don't hold up status messages */
+    private int uploadWorkers = 2;
+}
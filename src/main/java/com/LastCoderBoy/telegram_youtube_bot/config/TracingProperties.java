@@ -0,0 +1,16 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "tracing")
+public class TracingProperties {
+    private boolean exportEnabled = true;
+    private String exportPath;
+    private long exportMaxBytes = 50L * 1024 * 1024;
+    private int recentCapacity = 200;
+}
@@ -0,0 +1,77 @@
+package com.LastCoderBoy.telegram_youtube_bot.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams JFR's jdk.VirtualThreadPinned events in virtual mode, so carrier threads
+ * blocked inside synchronized code (e.g. in the telegrambots HTTP client) show up
+ * in the log and as the virtual.threads.pinned counter tagged by the blocking frame.
+ * The mode is checked at runtime rather than with a condition, which an AOT build would
+ * fix at build time, and JFR starts after the bot is up instead of during refresh.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final AsyncProperties properties;
+    private final MeterRegistry registry;
+    private RecordingStream recordingStream;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.getMode() != AsyncProperties.Mode.VIRTUAL) {
+            return;
+        }
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(Duration.ofMillis(properties.getPinnedThresholdMillis()))
+                .withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+        log.info("Watching for virtual thread pinning longer than {} ms", properties.getPinnedThresholdMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String blockingFrame = frames.isEmpty() ? "unknown" : describe(frames.get(0));
+
+        Counter.builder("virtual.threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .tag("frame", blockingFrame)
+                .register(registry)
+                .increment();
+
+        if (log.isWarnEnabled()) {
+            StringBuilder stack = new StringBuilder();
+            frames.stream().limit(LOGGED_FRAMES).forEach(frame -> stack.append("\n\tat ").append(describe(frame)));
+            log.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), stack);
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+}
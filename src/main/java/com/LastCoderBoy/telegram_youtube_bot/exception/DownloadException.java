@@ -1,11 +1,24 @@
 package com.LastCoderBoy.telegram_youtube_bot.exception;
 
 public class DownloadException extends RuntimeException {
+    // Transient failure (throttling, network, killed process) that another attempt may get past
+    private final boolean retryable;
+
     public DownloadException(String message) {
+        this(message, false);
+    }
+
+    public DownloadException(String message, boolean retryable) {
         super(message);
+        this.retryable = retryable;
     }
 
     public DownloadException(String message, Throwable cause) {
         super(message, cause);
+        this.retryable = false;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
     }
 }
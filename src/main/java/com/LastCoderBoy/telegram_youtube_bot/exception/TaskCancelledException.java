@@ -0,0 +1,11 @@
+package com.LastCoderBoy.telegram_youtube_bot.exception;
+
+public class TaskCancelledException extends RuntimeException {
+    public TaskCancelledException(String message) {
+        super(message);
+    }
+
+    public TaskCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,41 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Delivery formats. All of them are made from the same downloaded source, so asking for
+ * another format of a recent video only costs an encode (or, for M4A, a remux).
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AudioFormat {
+
+    MP3("🎵 MP3", "mp3", null, false),
+
+    MP3_128("💾 MP3 128k", "mp3", "128k", false),
+
+    MP3_320("💿 MP3 320k", "mp3", "320k", false),
+
+    /** Opus in Ogg, sent with SendVoice so it plays inline as a voice note */
+    OPUS("🎙 Voice note", "ogg", "64k", true),
+
+    /** YouTube's AAC stream copied into an M4A container; re-encoded only when a profile filters it */
+    M4A("🎧 M4A", "m4a", "128k", false);
+
+    private final String label;
+    private final String extension;
+    private final String bitrate; // null uses the profile's or ffmpeg.audio-bitrate
+    private final boolean voice;
+
+    public boolean isMp3() {
+        return "mp3".equals(extension);
+    }
+
+    /**
+     * Suffix that keeps each format's cached file_id apart from the others
+     */
+    public String cacheKeySuffix() {
+        return this == MP3 ? "" : ":" + name().toLowerCase();
+    }
+}
@@ -0,0 +1,43 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Output profiles. Each one is a single FFmpeg filter graph applied during the MP3 encode,
+ * so picking one never adds a pass over the file.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AudioProfile {
+
+    STANDARD("🎵 Standard", null, 2, null),
+
+    /** EBU R128 loudness normalisation (single-pass, dynamic) to the -16 LUFS streaming target */
+    NORMALIZED("🔊 Normalized", "loudnorm=I=-16:TP=-1.5:LRA=11", 2, null),
+
+    /**
+     * Leading silence removed, and every silence of 2 s or more anywhere in the track, the outro
+     * included, cut down to 0.2 s, in one streaming pass. Limiting that to the tail would mean
+     * reversing the stream, which holds the whole decoded track in memory; the menu says what it does.
+     */
+    TRIMMED("✂️ Trim silence",
+            "silenceremove=start_periods=1:start_threshold=-50dB:start_silence=0.2"
+                    + ":stop_periods=-1:stop_threshold=-50dB:stop_duration=2:stop_silence=0.2",
+            2, null),
+
+    /** Podcasts and lectures: voice band only, levelled, mono at a low bitrate */
+    SPEECH("🎙 Speech", "highpass=f=80,lowpass=f=8000,loudnorm=I=-16:TP=-1.5:LRA=7", 1, "64k");
+
+    private final String label;
+    private final String filterGraph;
+    private final int channels;
+    private final String bitrate; // null uses ffmpeg.audio-bitrate
+
+    /**
+     * Suffix that keeps each profile's cached file_id apart from the others
+     */
+    public String cacheKeySuffix() {
+        return this == STANDARD ? "" : ":" + name().toLowerCase();
+    }
+}
@@ -0,0 +1,68 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+/**
+ * A time range of the video to download and convert instead of the whole thing
+ * @param startSeconds Inclusive start
+ * @param endSeconds Exclusive end
+ */
+public record AudioSection(long startSeconds, long endSeconds) {
+
+    public AudioSection {
+        if (startSeconds < 0 || endSeconds <= startSeconds) {
+            throw new IllegalArgumentException("Invalid section " + startSeconds + "-" + endSeconds);
+        }
+    }
+
+    /**
+     * Parse "1:30-2:45", "90-165" or "1:02:03-1:05:00"
+     * @return the section, or null if the text is not a valid range
+     */
+    public static AudioSection parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int dash = text.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long start = parseTime(text.substring(0, dash).trim());
+        long end = parseTime(text.substring(dash + 1).trim());
+        if (start < 0 || end <= start) {
+            return null;
+        }
+        return new AudioSection(start, end);
+    }
+
+    /**
+     * Length of the section within a video of the given duration
+     */
+    public long lengthWithin(long durationSeconds) {
+        long end = durationSeconds > 0 ? Math.min(endSeconds, durationSeconds) : endSeconds;
+        return Math.max(0, end - startSeconds);
+    }
+
+    /**
+     * Value for yt-dlp's --download-sections
+     */
+    public String toDownloadSections() {
+        return "*" + startSeconds + "-" + endSeconds;
+    }
+
+    public String cacheKeySuffix() {
+        return ":" + startSeconds + "-" + endSeconds;
+    }
+
+    private static long parseTime(String time) {
+        if (time.isEmpty()) {
+            return -1;
+        }
+        long seconds = 0;
+        for (String part : time.split(":", -1)) {
+            if (part.isEmpty() || part.length() > 6 || !part.chars().allMatch(Character::isDigit)) {
+                return -1;
+            }
+            seconds = seconds * 60 + Long.parseLong(part);
+        }
+        return seconds;
+    }
+}
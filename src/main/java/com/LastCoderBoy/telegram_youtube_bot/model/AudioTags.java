@@ -0,0 +1,12 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+import java.nio.file.Path;
+
+/**
+ * ID3v2 tags written during the MP3 encode
+ * @param title Track title
+ * @param artist Track artist
+ * @param coverArt JPEG to embed as the front cover, or null
+ */
+public record AudioTags(String title, String artist, Path coverArt) {
+}
@@ -0,0 +1,20 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Audio that was already uploaded to Telegram and can be re-sent by file_id
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedAudio {
+    private String fileId;
+    private String title;
+    private String performer;
+}
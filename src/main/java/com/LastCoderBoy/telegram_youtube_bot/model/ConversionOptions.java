@@ -0,0 +1,33 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+/**
+ * Per-request output options
+ * @param profile Filter graph and encoding settings
+ * @param section Part of the video to convert, or null for all of it
+ * @param format Container and codec the file is delivered in
+ */
+public record ConversionOptions(AudioProfile profile, AudioSection section, AudioFormat format) {
+
+    public static final ConversionOptions DEFAULT = new ConversionOptions(AudioProfile.STANDARD, null);
+
+    public ConversionOptions {
+        if (profile == null) {
+            profile = AudioProfile.STANDARD;
+        }
+        if (format == null) {
+            format = AudioFormat.MP3;
+        }
+    }
+
+    public ConversionOptions(AudioProfile profile, AudioSection section) {
+        this(profile, section, AudioFormat.MP3);
+    }
+
+    /**
+     * Appended to the video's cache key so each profile, section and format is cached on its own
+     */
+    public String cacheKeySuffix() {
+        return profile.cacheKeySuffix() + (section != null ? section.cacheKeySuffix() : "")
+                + format.cacheKeySuffix();
+    }
+}
@@ -6,5 +6,6 @@ public enum ConversionStatus {
     CONVERTING,
     UPLOADING,
     COMPLETED,
-    FAILED
+    FAILED,
+    CANCELLED
 }
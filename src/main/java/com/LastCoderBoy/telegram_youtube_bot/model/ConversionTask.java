@@ -1,6 +1,7 @@
 package com.LastCoderBoy.telegram_youtube_bot.model;
 
 
+import com.LastCoderBoy.telegram_youtube_bot.util.CancellationHandle;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,11 +17,16 @@ public class ConversionTask {
     private String taskId;
     private Long chatId;
     private String youtubeUrl;
+    private ConversionOptions options;
     private VideoMetadata metadata;
     private ConversionStatus status;
     private String downloadedFilePath;
     private String convertedFilePath;
+    private String thumbnailPath;
+    private StorageTier storageTier;
     private LocalDateTime createdAt;
     private LocalDateTime completedAt;
     private String errorMessage;
+    private TaskTimeline timeline;
+    private CancellationHandle cancellation;
 }
@@ -0,0 +1,28 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One phase of a task. Timestamps are {@link System#nanoTime()} values,
+ * see {@link TaskTimeline#toEpochNanos(long)} for wall-clock time.
+ */
+@Data
+public class PhaseSpan {
+    private final TaskPhase phase;
+    private final long startNanos;
+    private long endNanos;
+    private boolean failed;
+    private final List<Long> processIds = new CopyOnWriteArrayList<>();
+
+    public boolean isOpen() {
+        return endNanos == 0;
+    }
+
+    public long getDurationNanos() {
+        return (isOpen() ? System.nanoTime() : endNanos) - startNanos;
+    }
+}
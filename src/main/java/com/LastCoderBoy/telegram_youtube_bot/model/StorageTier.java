@@ -0,0 +1,10 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+/**
+ * Where a task keeps its download and MP3
+ */
+public enum StorageTier {
+    /** RAM-backed directory (tmpfs), within a total byte budget */
+    MEMORY,
+    DISK
+}
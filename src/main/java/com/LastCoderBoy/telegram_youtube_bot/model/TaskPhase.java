@@ -0,0 +1,11 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+public enum TaskPhase {
+    QUEUED,
+    METADATA,
+    DOWNLOAD,
+    CONVERT,
+    SIZE_CHECK,
+    UPLOAD,
+    CLEANUP
+}
@@ -0,0 +1,87 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phase-by-phase record of where a task spent its time.
+ * Phases are sequential: starting a phase ends the previous one.
+ */
+public class TaskTimeline {
+
+    private final long originEpochNanos;
+    private final long originNanos;
+    private final List<PhaseSpan> phases = new ArrayList<>();
+    private final List<Long> processIds = new ArrayList<>();
+    private final Map<String, Long> byteCounts = new LinkedHashMap<>();
+
+    public TaskTimeline() {
+        this.originNanos = System.nanoTime();
+        this.originEpochNanos = ChronoUnit.NANOS.between(Instant.EPOCH, Instant.now());
+    }
+
+    public synchronized void begin(TaskPhase phase) {
+        long now = System.nanoTime();
+        closeOpenPhase(now, false);
+        phases.add(new PhaseSpan(phase, now));
+    }
+
+    /**
+     * End the open phase, marking it failed if the task failed there
+     */
+    public synchronized void end(boolean failed) {
+        closeOpenPhase(System.nanoTime(), failed);
+    }
+
+    public synchronized void recordProcess(long pid) {
+        processIds.add(pid);
+        PhaseSpan current = currentPhase();
+        if (current != null) {
+            current.getProcessIds().add(pid);
+        }
+    }
+
+    public synchronized void recordBytes(String name, long bytes) {
+        byteCounts.put(name, bytes);
+    }
+
+    public synchronized PhaseSpan currentPhase() {
+        if (phases.isEmpty()) {
+            return null;
+        }
+        PhaseSpan last = phases.get(phases.size() - 1);
+        return last.isOpen() ? last : null;
+    }
+
+    public synchronized List<PhaseSpan> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    public synchronized List<Long> getProcessIds() {
+        return List.copyOf(processIds);
+    }
+
+    public synchronized Map<String, Long> getByteCounts() {
+        return Map.copyOf(byteCounts);
+    }
+
+    public long getStartNanos() {
+        return originNanos;
+    }
+
+    public long toEpochNanos(long nanoTime) {
+        return originEpochNanos + (nanoTime - originNanos);
+    }
+
+    private void closeOpenPhase(long now, boolean failed) {
+        PhaseSpan current = currentPhase();
+        if (current != null) {
+            current.setEndNanos(now);
+            current.setFailed(failed);
+        }
+    }
+}
@@ -17,4 +17,10 @@ public class VideoMetadata {
     private Long duration; // in seconds
     private String thumbnail;
     private String uploader;
+    private Long filesize; // bytes, exact or approximate, null if yt-dlp doesn't know
+    // Audio-only format the download will pick
+    private String audioFormatId;
+    private String audioExt;
+    private Double audioBitrate; // kbps
+    private Long audioFilesize;
 }
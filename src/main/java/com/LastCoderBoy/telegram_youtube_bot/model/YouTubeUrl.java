@@ -0,0 +1,17 @@
+package com.LastCoderBoy.telegram_youtube_bot.model;
+
+/**
+ * A parsed YouTube link
+ * @param videoId The 11-character video ID
+ * @param playlistId The list= parameter, or null
+ * @param startSeconds The t= / start= offset, 0 when absent
+ */
+public record YouTubeUrl(String videoId, String playlistId, int startSeconds) {
+
+    /**
+     * The plain watch URL for the video, without playlist or tracking parameters
+     */
+    public String canonicalUrl() {
+        return "https://www.youtube.com/watch?v=" + videoId;
+    }
+}
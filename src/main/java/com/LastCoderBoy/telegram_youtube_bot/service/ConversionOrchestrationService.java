@@ -3,23 +3,44 @@ package com.LastCoderBoy.telegram_youtube_bot.service;
 import com.LastCoderBoy.telegram_youtube_bot.exception.ConversionException;
 import com.LastCoderBoy.telegram_youtube_bot.exception.DownloadException;
 import com.LastCoderBoy.telegram_youtube_bot.exception.FileSizeExceededException;
+import com.LastCoderBoy.telegram_youtube_bot.exception.TaskCancelledException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioTags;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionOptions;
 import com.LastCoderBoy.telegram_youtube_bot.model.ConversionStatus;
 import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskPhase;
 import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
 import com.LastCoderBoy.telegram_youtube_bot.service.audio.AudioConversionService;
+import com.LastCoderBoy.telegram_youtube_bot.service.cache.SourceAudioCache;
+import com.LastCoderBoy.telegram_youtube_bot.service.cache.ThumbnailCache;
+import com.LastCoderBoy.telegram_youtube_bot.service.cache.VideoCacheService;
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.PriorityConversionExecutor;
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.ResourceLimiter;
+import com.LastCoderBoy.telegram_youtube_bot.service.metrics.PipelineMetrics;
 import com.LastCoderBoy.telegram_youtube_bot.service.storage.FileStorageService;
+import com.LastCoderBoy.telegram_youtube_bot.service.task.TaskRegistry;
+import com.LastCoderBoy.telegram_youtube_bot.service.tracing.TaskTracer;
 import com.LastCoderBoy.telegram_youtube_bot.service.youtube.YouTubeDownloadService;
+import com.LastCoderBoy.telegram_youtube_bot.util.CancellationHandle;
+import com.LastCoderBoy.telegram_youtube_bot.util.TaskContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @Service
@@ -27,134 +48,473 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class ConversionOrchestrationService {
 
+    // How long the encode waits for a cover that is still downloading before going without
+    private static final long THUMBNAIL_WAIT_SECONDS = 2;
+
     @Value("${telegram.max-file-size}")
     private long maxFileSize;
 
     private final YouTubeDownloadService youTubeDownloadService;
     private final AudioConversionService audioConversionService;
     private final FileStorageService fileStorageService;
+    private final VideoCacheService videoCache;
+    private final ThumbnailCache thumbnailCache;
+    private final SourceAudioCache sourceCache;
+    private final PipelineMetrics pipelineMetrics;
+    private final TaskTracer taskTracer;
+    private final ResourceLimiter resourceLimiter;
+    private final TaskRegistry taskRegistry;
+    private final PriorityConversionExecutor conversionExecutor;
 
 
     /**
-     * Get video metadata without downloading
+     * Get video metadata without downloading, served from cache when possible
      */
     public VideoMetadata getVideoInfo(String youtubeUrl) {
+        String cacheKey = videoCache.keyFor(youtubeUrl);
+        VideoMetadata cached = videoCache.getMetadata(cacheKey);
+        pipelineMetrics.recordMetadataCache(cached != null);
+        if (cached != null) {
+            log.info("Video info cache hit for: {}", cacheKey);
+            return cached;
+        }
+
         log.info("Fetching video info for: {}", youtubeUrl);
-        return youTubeDownloadService.getVideoMetadata(youtubeUrl);
+        VideoMetadata metadata = pipelineMetrics.timeStage(PipelineMetrics.METADATA,
+                () -> youTubeDownloadService.getVideoMetadata(youtubeUrl));
+        videoCache.putMetadata(cacheKey, metadata);
+        return metadata;
     }
 
     /**
-     * Process YouTube URL: download → convert → return file path
-     * This runs asynchronously
+     * {@link #getVideoInfo(String)} on a conversion worker, so retries and their backoff never run on
+     * the thread handling updates. Queued at zero cost: it goes ahead of waiting conversions and may
+     * use the fast lane.
      */
-    @Async
-    public CompletableFuture<ConversionTask> processVideo(String youtubeUrl, Long chatId) {
-        String taskId = UUID.randomUUID().toString();
+    public CompletableFuture<VideoMetadata> getVideoInfoAsync(String youtubeUrl) {
+        VideoMetadata cached = videoCache.getMetadata(videoCache.keyFor(youtubeUrl));
+        if (cached != null) {
+            pipelineMetrics.recordMetadataCache(true);
+            return CompletableFuture.completedFuture(cached);
+        }
+        try {
+            return conversionExecutor.submitCompletable(null, 0, () -> getVideoInfo(youtubeUrl));
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
+    /**
+     * Create a task for the URL and start tracing it; pass it to {@link #processVideo(ConversionTask)}
+     */
+    public ConversionTask createTask(String youtubeUrl, Long chatId) {
+        return createTask(youtubeUrl, chatId, ConversionOptions.DEFAULT);
+    }
+
+    public ConversionTask createTask(String youtubeUrl, Long chatId, ConversionOptions options) {
         ConversionTask task = ConversionTask.builder()
-                .taskId(taskId)
+                .taskId(UUID.randomUUID().toString())
                 .chatId(chatId)
                 .youtubeUrl(youtubeUrl)
+                .options(options)
                 .status(ConversionStatus.PENDING)
                 .createdAt(LocalDateTime.now())
+                .cancellation(new CancellationHandle())
                 .build();
+        taskTracer.start(task);
+        taskRegistry.register(task);
+        return task;
+    }
 
+    /**
+     * Cancel every queued or running conversion of the chat. Running yt-dlp/FFmpeg
+     * processes are killed and the task's partial files are removed by its worker.
+     * @return number of tasks cancelled
+     */
+    public int cancelTasks(Long chatId) {
+        int cancelled = 0;
+        for (ConversionTask task : taskRegistry.findActiveByChat(chatId)) {
+            if (cancel(task)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancel one queued or running conversion, as {@link #cancelTasks(Long)} does for a chat
+     * @return false if the task is unknown, already finished or already cancelled
+     */
+    public boolean cancelTask(String taskId) {
+        ConversionTask task = taskRegistry.get(taskId);
+        return task != null && TaskRegistry.isActive(task) && cancel(task);
+    }
+
+    private boolean cancel(ConversionTask task) {
+        if (!task.getCancellation().cancel()) {
+            return false;
+        }
+        log.info("[{}] Cancellation requested", task.getTaskId());
+        // A queued task only has to notice the cancel and clean up, no need to wait its turn
+        conversionExecutor.expedite(task.getTaskId());
+        return true;
+    }
+
+    /**
+     * Queue the task for download → convert. Short videos go ahead of long ones,
+     * see {@link PriorityConversionExecutor}; the future completes with the task in its final state.
+     */
+    public CompletableFuture<ConversionTask> processVideo(ConversionTask task) {
         try {
+            return conversionExecutor.submitCompletable(task.getTaskId(), estimateCost(task), () -> convert(task));
+        } catch (TaskRejectedException e) {
+            log.warn("[{}] Not queued: {}", task.getTaskId(), e.getMessage());
+            task.setStatus(ConversionStatus.FAILED);
+            task.setErrorMessage("Too many conversions waiting, please try again later");
+            pipelineMetrics.recordTask("failure", e);
+            taskTracer.finish(task);
+            taskRegistry.finish(task);
+            return CompletableFuture.completedFuture(task);
+        }
+    }
+
+    /**
+     * Process YouTube URL: download (or reuse a recent download) → convert → return file path
+     */
+    private ConversionTask convert(ConversionTask task) {
+        String taskId = task.getTaskId();
+        String youtubeUrl = task.getYoutubeUrl();
+        ConversionOptions options = task.getOptions() != null ? task.getOptions() : ConversionOptions.DEFAULT;
+        AudioSection section = options.section();
+        CancellationHandle cancellation = task.getCancellation();
+        // Every format of a video (or of the same clip of it) is made from one download
+        String sourceKey = videoCache.keyFor(youtubeUrl) + (section != null ? section.cacheKeySuffix() : "");
+        SourceAudioCache.Lease source = null;
+        boolean claimedSource = false;
+        TaskContext.set(task);
+        cancellation.bindWorker();
+
+        try {
+            // Cancelled while still queued: leave without touching yt-dlp
+            cancellation.throwIfCancelled();
+
             // Step 1: Get video metadata
-            log.info("[{}] Fetching video metadata", taskId);
+            log.debug("[{}] Fetching video metadata", taskId);
+            taskTracer.enter(task, TaskPhase.METADATA);
             task.setStatus(ConversionStatus.DOWNLOADING);
-            VideoMetadata metadata = youTubeDownloadService.getVideoMetadata(youtubeUrl);
+            VideoMetadata metadata = getVideoInfo(youtubeUrl);
             task.setMetadata(metadata);
+            long duration = section != null ? section.lengthWithin(metadata.getDuration()) : metadata.getDuration();
+            if (duration <= 0 && section != null) {
+                throw new DownloadException("Section " + section.startSeconds() + "s starts after the end of the video");
+            }
+            pipelineMetrics.recordAudioDuration(duration);
 
-            log.info("[{}] Video: {} by {}", taskId, metadata.getTitle(), metadata.getUploader());
+            log.info("[{}] Video: {} by {} ({}{})", taskId, metadata.getTitle(), metadata.getUploader(),
+                    options.profile(), section != null ? ", section " + section.toDownloadSections() : "");
+
+            // Don't spend a download and a conversion on a file Telegram will refuse anyway
+            long estimatedSize = audioConversionService.estimateSize(duration, options.profile(), options.format());
+            if (estimatedSize > maxFileSize) {
+                throw new FileSizeExceededException(
+                        String.format("Estimated file size (%s) exceeds Telegram limit (%s)",
+                                fileStorageService.getFileSizeReadable(estimatedSize),
+                                fileStorageService.getFileSizeReadable(maxFileSize))
+                );
+            }
 
-            // Step 2: Download audio
-            log.info("[{}] Downloading audio", taskId);
+            // Step 2: Download audio, unless another format of it was made a moment ago
+            cancellation.throwIfCancelled();
+            taskTracer.enter(task, TaskPhase.DOWNLOAD);
             String sanitizedTitle = fileStorageService.sanitizeFileName(metadata.getTitle());
-            Path downloadPath = fileStorageService.getDownloadPath(sanitizedTitle);
+            CompletableFuture<Path> thumbnail = thumbnailCache.fetch(metadata.getVideoId());
+            source = sourceCache.acquireOrClaim(sourceKey);
+            claimedSource = source == null;
+            pipelineMetrics.recordSourceCache(source != null);
 
-            Path downloadedFile = youTubeDownloadService.downloadAudio(youtubeUrl, downloadPath);
-            task.setDownloadedFilePath(downloadedFile.toString());
+            Path sourceFile;
+            if (source != null) {
+                log.debug("[{}] Reusing downloaded source {}", taskId, source.file().getFileName());
+                task.setStorageTier(fileStorageService.reserve(taskId, estimatedSize));
+                sourceFile = source.file();
+            } else {
+                log.debug("[{}] Downloading audio", taskId);
+                long estimatedSourceBytes = estimateSourceBytes(metadata, duration);
+                task.setStorageTier(fileStorageService.reserve(taskId,
+                        estimatedSourceBytes > 0 ? estimatedSourceBytes + estimatedSize : 0));
+                // Task id first so partial downloads can be found by prefix, even after the name is truncated
+                Path downloadPath = fileStorageService.getDownloadPath(taskId + "_" + sanitizedTitle, task.getStorageTier());
 
-            log.info("[{}] Download completed: {}", taskId, downloadedFile.getFileName());
+                Path downloadedFile = fileStorageService.confirmOrSpill(taskId,
+                        resourceLimiter.withPermit(ResourceLimiter.Resource.DOWNLOAD,
+                                () -> pipelineMetrics.timeStage(PipelineMetrics.DOWNLOAD,
+                                        () -> youTubeDownloadService.downloadAudio(youtubeUrl, downloadPath, section))),
+                        estimatedSize);
+                task.setStorageTier(fileStorageService.tierOf(taskId));
+                long inputBytes = fileStorageService.getFileSize(downloadedFile);
+                pipelineMetrics.recordInputBytes(inputBytes);
+                taskTracer.recordBytes(task, "input", inputBytes);
+                log.debug("[{}] Download completed: {}", taskId, downloadedFile.getFileName());
 
-            // Step 3: Convert to MP3
-            log.info("[{}] Converting to MP3", taskId);
+                // Hand it to the cache; tasks waiting for this video continue from here
+                source = sourceCache.retain(sourceKey, downloadedFile);
+                claimedSource = false;
+                if (source == null) {
+                    task.setDownloadedFilePath(downloadedFile.toString());
+                }
+                sourceFile = source != null ? source.file() : downloadedFile;
+            }
+
+            // Step 3: Convert to the requested format
+            cancellation.throwIfCancelled();
+            log.debug("[{}] Converting to {}", taskId, options.format());
+            taskTracer.enter(task, TaskPhase.CONVERT);
             task.setStatus(ConversionStatus.CONVERTING);
 
-            Path mp3Path = fileStorageService.getConvertedPath(sanitizedTitle + ".mp3");
-            Path convertedFile = audioConversionService.convertToMp3(downloadedFile, mp3Path);
+            // Profiles, sections and formats get their own file name, so they can run alongside the plain conversion
+            String variant = options.cacheKeySuffix().replace(':', '-');
+            // Task id first, like the download: chats converting the same video must not share a file
+            Path outputPath = fileStorageService.getConvertedPath(
+                    taskId + "_" + sanitizedTitle + variant + "." + options.format().getExtension(),
+                    task.getStorageTier());
+            task.setConvertedFilePath(outputPath.toString());  // so a cancel mid-encode removes the partial file
+            Path coverArt = awaitThumbnail(thumbnail);
+            if (coverArt != null) {
+                task.setThumbnailPath(coverArt.toString());
+            }
+            AudioTags tags = new AudioTags(metadata.getTitle(), metadata.getUploader(), coverArt);
+            Path convertedFile = resourceLimiter.withPermit(ResourceLimiter.Resource.CONVERSION,
+                    () -> pipelineMetrics.timeStage(PipelineMetrics.CONVERSION,
+                            () -> audioConversionService.convert(sourceFile, outputPath, tags,
+                                    options.profile(), options.format())));
             task.setConvertedFilePath(convertedFile.toString());
 
-            log.info("[{}] Conversion completed: {}", taskId, convertedFile.getFileName());
+            log.debug("[{}] Conversion completed: {}", taskId, convertedFile.getFileName());
 
             // Step 4: Check file size
-            long fileSize = fileStorageService.getFileSize(convertedFile);
-            log.info("[{}] MP3 file size: {}", taskId, fileStorageService.getFileSizeReadable(fileSize));
+            cancellation.throwIfCancelled();
+            taskTracer.enter(task, TaskPhase.SIZE_CHECK);
+            pipelineMetrics.runStage(PipelineMetrics.SIZE_CHECK, () -> {
+                long fileSize = fileStorageService.getFileSize(convertedFile);
+                log.debug("[{}] Output file size: {} bytes", taskId, fileSize);
+                pipelineMetrics.recordOutputBytes(fileSize);
+                taskTracer.recordBytes(task, "output", fileSize);
 
-            if (fileSize > maxFileSize) {
-                throw new FileSizeExceededException(
-                        String.format("File size (%s) exceeds Telegram limit (%s)",
-                                fileStorageService.getFileSizeReadable(fileSize),
-                                fileStorageService.getFileSizeReadable(maxFileSize))
-                );
-            }
+                if (fileSize > maxFileSize) {
+                    throw new FileSizeExceededException(
+                            String.format("File size (%s) exceeds Telegram limit (%s)",
+                                    fileStorageService.getFileSizeReadable(fileSize),
+                                    fileStorageService.getFileSizeReadable(maxFileSize))
+                    );
+                }
+            });
 
-            // Step 5: Cleanup downloaded file (keep only MP3)
-            fileStorageService.deleteFile(downloadedFile);
+            // Step 5: Cleanup downloaded file (keep only the output); a cached source stays for other formats
+            if (source == null) {
+                fileStorageService.deleteFile(sourceFile);
+            }
 
             // Mark as completed
             task.setStatus(ConversionStatus.COMPLETED);
             task.setCompletedAt(LocalDateTime.now());
 
             log.info("[{}] Processing completed successfully", taskId);
-            return CompletableFuture.completedFuture(task);
+            pipelineMetrics.recordTask("success", null);
+            return task;
+
+        } catch (TaskCancelledException | CancellationException e) {
+            return cancelled(task);
 
         } catch (DownloadException e) {
+            if (cancellation.isCancelled()) {
+                return cancelled(task);
+            }
             log.error("[{}] Download failed: {}", taskId, e.getMessage());
             task.setStatus(ConversionStatus.FAILED);
             task.setErrorMessage("Download failed: " + e.getMessage());
-            return CompletableFuture.completedFuture(task);
+            pipelineMetrics.recordTask("failure", e);
+            return task;
 
         } catch (ConversionException e) {
+            if (cancellation.isCancelled()) {
+                return cancelled(task);
+            }
             log. error("[{}] Conversion failed: {}", taskId, e.getMessage());
             task.setStatus(ConversionStatus.FAILED);
             task.setErrorMessage("Conversion failed: " + e. getMessage());
-            return CompletableFuture.completedFuture(task);
+            pipelineMetrics.recordTask("failure", e);
+            return task;
 
         } catch (FileSizeExceededException e) {
             log.error("[{}] File size exceeded: {}", taskId, e.getMessage());
             task.setStatus(ConversionStatus.FAILED);
             task.setErrorMessage(e.getMessage());
-
-            // Cleanup files
-            if (task.getDownloadedFilePath() != null) {
-                fileStorageService.deleteFile(Path.of(task.getDownloadedFilePath()));
-            }
-            if (task.getConvertedFilePath() != null) {
-                fileStorageService.deleteFile(Path.of(task. getConvertedFilePath()));
-            }
-
-            return CompletableFuture.completedFuture(task);
+            pipelineMetrics.recordTask("failure", e);
+            return task;
 
         } catch (Exception e) {
+            if (cancellation.isCancelled()) {
+                return cancelled(task);
+            }
             log.error("[{}] Unexpected error: {}", taskId, e.getMessage(), e);
             task.setStatus(ConversionStatus.FAILED);
             task.setErrorMessage("Unexpected error: " + e.getMessage());
-            return CompletableFuture.completedFuture(task);
+            pipelineMetrics.recordTask("failure", e);
+            return task;
+
+        } finally {
+            cancellation.unbindWorker();
+            if (claimedSource) {
+                // Download failed or was cancelled: let a task waiting for the same source try itself
+                sourceCache.abandon(sourceKey);
+            }
+            if (source != null) {
+                source.close();
+            }
+            if (task.getStatus() == ConversionStatus.FAILED || task.getStatus() == ConversionStatus.CANCELLED) {
+                // Failed tasks don't leave their files behind either: on the memory tier they hold RAM
+                deleteTaskFiles(task);
+                fileStorageService.release(taskId);
+                taskTracer.finish(task);
+                taskRegistry.finish(task);
+            }
+            TaskContext.clear();
         }
     }
 
+    /**
+     * The cover if it arrives in time; the encode goes ahead without one otherwise
+     */
+    private Path awaitThumbnail(CompletableFuture<Path> thumbnail) {
+        try {
+            return thumbnail.get(THUMBNAIL_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Leave the flag for the next stage to see; a cancel is handled there
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mark the task cancelled; its files are removed on the way out of processVideo
+     */
+    private ConversionTask cancelled(ConversionTask task) {
+        log.info("[{}] Conversion cancelled", task.getTaskId());
+        task.setStatus(ConversionStatus.CANCELLED);
+        task.setErrorMessage("Cancelled");
+        task.setCompletedAt(LocalDateTime.now());
+        pipelineMetrics.recordTask("cancelled", null);
+        return task;
+    }
+
+    /**
+     * Remove the task's download, including yt-dlp's .part files, and its output file
+     */
+    private void deleteTaskFiles(ConversionTask task) {
+        int deleted = fileStorageService.deleteDownloadsWithPrefix(task.getTaskId() + "_");
+        if (task.getConvertedFilePath() != null) {
+            fileStorageService.deleteFile(Path.of(task.getConvertedFilePath()));
+        }
+        log.debug("[{}] Removed {} download file(s)", task.getTaskId(), deleted);
+    }
+
+    /**
+     * Queue cost of a task in seconds of audio to download and encode, from the metadata the
+     * bot fetched before queueing it. 0 when the clip is empty or the estimated MP3 is already
+     * over the limit, since such a task fails in its first step.
+     */
+    private long estimateCost(ConversionTask task) {
+        VideoMetadata metadata = videoCache.getMetadata(videoCache.keyFor(task.getYoutubeUrl()));
+        if (metadata == null || metadata.getDuration() == null || metadata.getDuration() <= 0) {
+            return PriorityConversionExecutor.UNKNOWN_COST;
+        }
+        ConversionOptions options = task.getOptions() != null ? task.getOptions() : ConversionOptions.DEFAULT;
+        long duration = options.section() != null
+                ? options.section().lengthWithin(metadata.getDuration())
+                : metadata.getDuration();
+        if (duration <= 0
+                || audioConversionService.estimateSize(duration, options.profile(), options.format()) > maxFileSize) {
+            return 0;
+        }
+        return duration;
+    }
+
+    /**
+     * Expected size of the downloaded audio: yt-dlp's size for the chosen format, scaled
+     * down for a section, else its bitrate times the duration; 0 when neither is known
+     */
+    private static long estimateSourceBytes(VideoMetadata metadata, long duration) {
+        Long fullDuration = metadata.getDuration();
+        if (metadata.getAudioFilesize() != null && fullDuration != null && fullDuration > 0) {
+            return metadata.getAudioFilesize() * Math.min(duration, fullDuration) / fullDuration;
+        }
+        if (metadata.getAudioBitrate() != null && duration > 0) {
+            return (long) (metadata.getAudioBitrate() * 1000 / 8 * duration);
+        }
+        return 0;
+    }
+
+    /**
+     * Take the conversions still waiting for a worker off the queue so they don't start here,
+     * for the next instance to run; they are finished here as cancelled, and the futures from
+     * {@link #processVideo(ConversionTask)} complete with a {@link TaskCancelledException}
+     * @return the tasks taken, in the order they would have started
+     */
+    public List<ConversionTask> handOffQueued() {
+        List<ConversionTask> handedOff = new ArrayList<>();
+        for (String taskId : conversionExecutor.drainQueued(new TaskCancelledException("Handed off on shutdown"))) {
+            ConversionTask task = taskRegistry.get(taskId);
+            if (task == null) {
+                continue;
+            }
+            task.setStatus(ConversionStatus.CANCELLED);
+            task.setErrorMessage("Handed off on shutdown");
+            pipelineMetrics.recordTask("handed_off", null);
+            taskTracer.finish(task);
+            taskRegistry.finish(task);
+            handedOff.add(task);
+        }
+        return handedOff;
+    }
+
+    /**
+     * Tasks queued, converting, or converted and not yet delivered and cleaned up.
+     * Not taken from the status: a converted task is COMPLETED until its upload starts.
+     */
+    public List<ConversionTask> getInFlightTasks() {
+        return taskRegistry.getUnfinished();
+    }
+
+    /**
+     * Whether the task has not reached {@link #cleanupTask(ConversionTask)} or another final step yet
+     */
+    public boolean isInFlight(ConversionTask task) {
+        return taskRegistry.isUnfinished(task);
+    }
+
+    /**
+     * Tasks of the chat known to the registry, oldest first
+     */
+    public List<ConversionTask> getTasks(Long chatId) {
+        return taskRegistry.findByChat(chatId);
+    }
+
     /**
      * Cleanup task files after upload
      */
     public void cleanupTask(ConversionTask task) {
+        taskTracer.enter(task, TaskPhase.CLEANUP);
         if (task.getDownloadedFilePath() != null) {
             fileStorageService.deleteFile(Path.of(task.getDownloadedFilePath()));
         }
         if (task.getConvertedFilePath() != null) {
             fileStorageService.deleteFile(Path. of(task.getConvertedFilePath()));
         }
+        fileStorageService.release(task.getTaskId());
         log.info("[{}] Task files cleaned up", task.getTaskId());
+        taskTracer.finish(task);
+        taskRegistry.finish(task);
     }
 }
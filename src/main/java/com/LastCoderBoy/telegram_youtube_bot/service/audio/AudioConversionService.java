@@ -1,14 +1,30 @@
 package com.LastCoderBoy.telegram_youtube_bot.service.audio;
 
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioTags;
+
 import java.nio.file.Path;
 
 public interface AudioConversionService {
 
     /**
-     * Convert audio file to MP3 format
+     * Convert audio file to the given format with the profile's filter graph, in a single pass
      * @param inputPath Input audio file
-     * @param outputPath Output MP3 file path
-     * @return Path to converted MP3 file
+     * @param outputPath Output file path, with the format's extension
+     * @param tags Tags to write, or null for none
+     * @param profile Output profile
+     * @param format Output format
+     * @return Path to converted file
+     */
+    Path convert(Path inputPath, Path outputPath, AudioTags tags, AudioProfile profile, AudioFormat format);
+
+    /**
+     * Estimate the size of the file this service produces for the given duration, profile and format
+     * @param durationSeconds Audio duration in seconds
+     * @param profile Output profile
+     * @param format Output format
+     * @return Estimated size in bytes, 0 if the duration is unknown
      */
-    Path convertToMp3(Path inputPath, Path outputPath);
+    long estimateSize(long durationSeconds, AudioProfile profile, AudioFormat format);
 }
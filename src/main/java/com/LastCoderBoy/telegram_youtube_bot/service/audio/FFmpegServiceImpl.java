@@ -2,6 +2,10 @@ package com.LastCoderBoy.telegram_youtube_bot.service.audio;
 
 
 import com.LastCoderBoy.telegram_youtube_bot.exception.ConversionException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioTags;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.FailureClassifier;
 import com.LastCoderBoy.telegram_youtube_bot.service.storage.FileStorageService;
 import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
 import lombok.RequiredArgsConstructor;
@@ -33,8 +37,8 @@ public class FFmpegServiceImpl implements AudioConversionService {
     private final FileStorageService fileStorageService;
 
     @Override
-    public Path convertToMp3(Path inputPath, Path outputPath) {
-        log.info("Converting {} to MP3", inputPath.getFileName());
+    public Path convert(Path inputPath, Path outputPath, AudioTags tags, AudioProfile profile, AudioFormat format) {
+        log.info("Converting {} to {} ({})", inputPath.getFileName(), format, profile);
 
         if (!Files.exists(inputPath)) {
             throw new ConversionException("Input file does not exist: " + inputPath);
@@ -49,15 +53,57 @@ public class FFmpegServiceImpl implements AudioConversionService {
             command.add(ffmpegPath);
             command.add("-i");
             command.add(inputPath.toString());
-            command.add("-vn");  // No video
-            command.add("-ar");
-            command.add("44100");  // Sample rate
-            command.add("-ac");
-            command.add("2");  // Audio channels (stereo)
-            command.add("-b:a");
-            command.add(audioBitrate);
-            command.add("-acodec");
-            command.add(audioCodec);
+            Path coverArt = tags != null ? tags.coverArt() : null;
+            if (coverArt != null && Files.exists(coverArt) && format != AudioFormat.OPUS) {
+                // Embed the cover as an ID3 APIC frame (or MP4 covr atom); it's already a JPEG, so copy it as is
+                command.add("-i");
+                command.add(coverArt.toString());
+                command.add("-map");
+                command.add("0:a:0");
+                command.add("-map");
+                command.add("1:v:0");
+                command.add("-c:v");
+                command.add("copy");
+                command.add("-disposition:v:0");
+                command.add("attached_pic");
+                command.add("-metadata:s:v");
+                command.add("title=Album cover");
+                command.add("-metadata:s:v");
+                command.add("comment=Cover (front)");
+            } else {
+                command.add("-vn");  // No video
+            }
+            if (isRemux(inputPath, profile, format)) {
+                // The source already is AAC: copy the stream, no encode at all
+                command.add("-c:a");
+                command.add("copy");
+            } else {
+                if (profile.getFilterGraph() != null) {
+                    // The whole profile is one graph, applied while encoding
+                    command.add("-af");
+                    command.add(profile.getFilterGraph());
+                }
+                command.add("-ar");
+                command.add(format == AudioFormat.OPUS ? "48000" : "44100");  // Sample rate; Opus only runs at 48 kHz
+                command.add("-ac");
+                command.add(String.valueOf(profile.getChannels()));  // Audio channels
+                command.add("-b:a");
+                command.add(bitrateFor(profile, format));
+                command.add("-acodec");
+                command.add(codecFor(format));
+            }
+            if (tags != null) {
+                if (format.isMp3()) {
+                    command.add("-id3v2_version");
+                    command.add("3");  // v2.3 is what most players and car stereos read
+                }
+                addMetadata(command, "title", tags.title());
+                addMetadata(command, "artist", tags.artist());
+            }
+            if (format == AudioFormat.M4A) {
+                command.add("-movflags");
+                command.add("+faststart");  // Index up front so Telegram clients can start playing while loading
+            }
             command.add("-y");  // Overwrite output file
             command.add(outputPath.toString());
 
@@ -69,7 +115,8 @@ public class FFmpegServiceImpl implements AudioConversionService {
 
             if (! result.isSuccess()) {
                 throw new ConversionException("FFmpeg failed with exit code: " + result. exitCode() +
-                        "\nOutput: " + result.output());
+                        "\nOutput: " + result.output(),
+                        FailureClassifier.isRetryableFfmpeg(result.exitCode(), result.output()));
             }
 
             if (! Files.exists(outputPath)) {
@@ -88,4 +135,51 @@ public class FFmpegServiceImpl implements AudioConversionService {
             throw new ConversionException("Audio conversion failed: " + e.getMessage(), e);
         }
     }
+
+    private void addMetadata(List<String> command, String key, String value) {
+        if (value != null && !value.isBlank()) {
+            command.add("-metadata");
+            command.add(key + "=" + value);
+        }
+    }
+
+    @Override
+    public long estimateSize(long durationSeconds, AudioProfile profile, AudioFormat format) {
+        if (durationSeconds <= 0) {
+            return 0;
+        }
+        // (Near) CBR output: bitrate × duration, plus a little for tags and container overhead.
+        // A remuxed M4A keeps YouTube's AAC bitrate, which the format's nominal bitrate matches
+        return bitrateBitsPerSecond(bitrateFor(profile, format)) / 8 * durationSeconds * 101 / 100;
+    }
+
+    // A format's own bitrate is an explicit choice and wins over the profile's
+    private String bitrateFor(AudioProfile profile, AudioFormat format) {
+        if (format.getBitrate() != null) {
+            return format.getBitrate();
+        }
+        return profile.getBitrate() != null ? profile.getBitrate() : audioBitrate;
+    }
+
+    private String codecFor(AudioFormat format) {
+        return switch (format) {
+            case MP3, MP3_128, MP3_320 -> audioCodec;
+            case OPUS -> "libopus";
+            case M4A -> "aac";
+        };
+    }
+
+    // yt-dlp prefers the m4a stream, which is AAC; a filter graph needs decoded samples though
+    private static boolean isRemux(Path inputPath, AudioProfile profile, AudioFormat format) {
+        return format == AudioFormat.M4A && profile.getFilterGraph() == null
+                && inputPath.getFileName().toString().toLowerCase().endsWith(".m4a");
+    }
+
+    private long bitrateBitsPerSecond(String configured) {
+        String bitrate = configured.trim().toLowerCase();
+        if (bitrate.endsWith("k")) {
+            return Long.parseLong(bitrate.substring(0, bitrate.length() - 1)) * 1000;
+        }
+        return Long.parseLong(bitrate);
+    }
 }
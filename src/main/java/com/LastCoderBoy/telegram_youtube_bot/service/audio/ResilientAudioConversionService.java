@@ -0,0 +1,49 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.audio;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ResilienceProperties;
+import com.LastCoderBoy.telegram_youtube_bot.exception.ConversionException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioTags;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.CircuitBreakerRegistry;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.Retrier;
+import com.LastCoderBoy.telegram_youtube_bot.util.CircuitBreaker;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+
+/**
+ * FFmpeg with a retry for encodes killed from outside (OOM killer, resource limits) and a
+ * circuit breaker that stops starting encodes while they keep dying. Bad input is not retried.
+ */
+@Primary
+@Service
+public class ResilientAudioConversionService implements AudioConversionService {
+
+    private final FFmpegServiceImpl delegate;
+    private final Retrier retrier;
+    private final ResilienceProperties properties;
+    private final CircuitBreaker breaker;
+
+    public ResilientAudioConversionService(FFmpegServiceImpl delegate, Retrier retrier,
+                                           CircuitBreakerRegistry breakers, ResilienceProperties properties) {
+        this.delegate = delegate;
+        this.retrier = retrier;
+        this.properties = properties;
+        this.breaker = breakers.get(CircuitBreakerRegistry.FFMPEG);
+    }
+
+    @Override
+    public Path convert(Path inputPath, Path outputPath, AudioTags tags, AudioProfile profile, AudioFormat format) {
+        return retrier.call("conversion", breaker, properties.getConversionMaxAttempts(),
+                () -> delegate.convert(inputPath, outputPath, tags, profile, format),
+                e -> e instanceof ConversionException conversion && conversion.isRetryable(),
+                ConversionException::new);
+    }
+
+    @Override
+    public long estimateSize(long durationSeconds, AudioProfile profile, AudioFormat format) {
+        return delegate.estimateSize(durationSeconds, profile, format);
+    }
+}
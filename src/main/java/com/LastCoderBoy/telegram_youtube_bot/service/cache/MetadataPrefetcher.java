@@ -0,0 +1,86 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.cache;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.CacheProperties;
+import com.LastCoderBoy.telegram_youtube_bot.exception.DownloadException;
+import com.LastCoderBoy.telegram_youtube_bot.service.youtube.YouTubeDownloadService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Speculative metadata fetches for inline queries.
+ * The work queue is bounded and deduplicated by cache key, so a user typing
+ * the same URL doesn't start a yt-dlp process per keystroke.
+ * Only inline mode needs it, so the pool is created on the first inline query.
+ */
+@Slf4j
+@Lazy
+@Component
+public class MetadataPrefetcher {
+
+    private final YouTubeDownloadService youTubeDownloadService;
+    private final VideoCacheService videoCache;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public MetadataPrefetcher(YouTubeDownloadService youTubeDownloadService, VideoCacheService videoCache,
+                              CacheProperties properties) {
+        this.youTubeDownloadService = youTubeDownloadService;
+        this.videoCache = videoCache;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                properties.getPrefetchWorkers(), properties.getPrefetchWorkers(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getPrefetchQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "metadata-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue a metadata fetch unless it is cached, already queued, or the queue is full
+     * @return true if a fetch was queued
+     */
+    public boolean prefetch(String url) {
+        String key = videoCache.keyFor(url);
+        if (videoCache.getMetadata(key) != null || !inFlight.add(key)) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    videoCache.putMetadata(key, youTubeDownloadService.getVideoMetadata(url));
+                    log.debug("Prefetched metadata for {}", key);
+                } catch (DownloadException e) {
+                    log.debug("Prefetch failed for {}: {}", key, e.getMessage());
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            log.debug("Prefetch queue full, skipping {}", key);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,292 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.cache;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.CacheProperties;
+import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Downloaded source audio, kept for a while per video (and clip) so that asking for another
+ * format of it costs an encode instead of a second download. A task holds a {@link Lease} while
+ * it encodes from an entry; an entry evicted meanwhile loses its file when the last lease goes.
+ * <p>
+ * Only one task downloads a given source at a time: the others wait for it and share the file.
+ */
+@Slf4j
+@Service
+@EnableScheduling
+public class SourceAudioCache {
+
+    private final CacheProperties properties;
+    private final Path directory;
+    private final MeterRegistry registry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Access order, so trimming drops the least recently used source first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> downloading = new HashSet<>();
+    private final AtomicLong fileSequence = new AtomicLong();
+    private long totalBytes;
+
+    public SourceAudioCache(CacheProperties properties, FileStorageProperties storageProperties,
+                            MeterRegistry registry) {
+        this.properties = properties;
+        this.directory = storageProperties.getSourceDirectory();
+        this.registry = registry;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            // Entries live in memory only, whatever a previous run left here is unreachable
+            Files.createDirectories(directory);
+            FileUtils.cleanDirectory(directory.toFile());
+        } catch (IOException e) {
+            log.warn("Could not prepare source cache directory {}: {}", directory, e.getMessage());
+        }
+        Gauge.builder("cache.source.entries", this, SourceAudioCache::size)
+                .description("Downloaded sources kept for other formats")
+                .register(registry);
+        Gauge.builder("cache.source.bytes", this, SourceAudioCache::bytes)
+                .description("Bytes held by the source cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Lease the cached source, waiting while another task is downloading it. When it is neither
+     * cached nor being downloaded, the caller is registered as its downloader and gets null: it
+     * must then call {@link #retain(String, Path)} or {@link #abandon(String)}.
+     * @throws InterruptedException if interrupted while waiting, e.g. by a cancel
+     */
+    public Lease acquireOrClaim(String key) throws InterruptedException {
+        if (!properties.isSourceEnabled()) {
+            return null;
+        }
+        lock.lock();
+        try {
+            while (true) {
+                Entry entry = entries.get(key);
+                if (entry != null && System.nanoTime() - entry.expiresAt < 0) {
+                    entry.leases++;
+                    return new Lease(entry);
+                }
+                if (entry != null) {
+                    evict(key);
+                }
+                if (downloading.add(key)) {
+                    return null;
+                }
+                changed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move the claimed download into the cache and lease it
+     * @return the lease, or null when the file is not cached (too large, disabled, move failed);
+     * the caller then keeps using and cleaning up its own file
+     */
+    public Lease retain(String key, Path downloadedFile) {
+        if (!properties.isSourceEnabled()) {
+            return null;
+        }
+        Path target = null;
+        long bytes = 0;
+        try {
+            bytes = Files.size(downloadedFile);
+            if (bytes <= properties.getSourceMaxBytes()) {
+                // A new name each time, an expired entry's file may still be leased. Keep the
+                // extension: the encoder decides between remux and encode by it
+                String name = downloadedFile.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                target = directory.resolve(key.replaceAll("[^a-zA-Z0-9_-]", "_") + "-"
+                        + fileSequence.incrementAndGet() + (dot >= 0 ? name.substring(dot) : ""));
+                Files.move(downloadedFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Could not keep source {} for other formats: {}", key, e.getMessage());
+            target = null;
+        }
+
+        lock.lock();
+        try {
+            downloading.remove(key);
+            changed.signalAll();
+            if (target == null) {
+                return null;
+            }
+            if (entries.containsKey(key)) {
+                evict(key);
+            }
+            Entry entry = new Entry(target, bytes,
+                    System.nanoTime() + TimeUnit.MINUTES.toNanos(properties.getSourceTtlMinutes()));
+            entry.leases = 1;
+            entries.put(key, entry);
+            totalBytes += bytes;
+            trim();
+            log.debug("Cached source {} ({} bytes)", key, bytes);
+            return new Lease(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give up a claim without a file, e.g. after a failed download; a waiting task takes over
+     */
+    public void abandon(String key) {
+        lock.lock();
+        try {
+            if (downloading.remove(key)) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop sources past their TTL
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void evictExpired() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            entries.entrySet().removeIf(e -> {
+                if (now - e.getValue().expiresAt < 0) {
+                    return false;
+                }
+                discard(e.getValue());
+                return true;
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held: least recently used first, until within both limits
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (eldest.hasNext()
+                && (entries.size() > properties.getSourceMaxEntries() || totalBytes > properties.getSourceMaxBytes())) {
+            discard(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    // Called with the lock held
+    private void evict(String key) {
+        discard(entries.remove(key));
+    }
+
+    // Called with the lock held, after or while removing the entry from the map
+    private void discard(Entry entry) {
+        totalBytes -= entry.bytes;
+        entry.evicted = true;
+        if (entry.leases == 0) {
+            delete(entry.file);
+        }
+    }
+
+    private void release(Entry entry) {
+        lock.lock();
+        try {
+            entry.leases--;
+            if (entry.evicted && entry.leases == 0) {
+                delete(entry.file);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached source {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Use of a cached source; close it once the encode is done
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public Path file() {
+            return entry.file;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Path file;
+        final long bytes;
+        final long expiresAt;
+        int leases;
+        boolean evicted;
+
+        Entry(Path file, long bytes, long expiresAt) {
+            this.file = file;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.cache;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.CacheProperties;
+import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Cover art on disk, one JPEG per video ID, used both as the ID3 cover and as the
+ * SendAudio thumbnail. Fetches {@code mqdefault.jpg} (320x180, a few KB) rather than
+ * the metadata's thumbnail URL, which is usually a multi-megapixel WebP that neither
+ * ID3 players nor Telegram's 320px/200 KB thumbnail limit accept.
+ * Concurrent requests for the same video share one download.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+public class ThumbnailCache {
+
+    // Telegram rejects thumbnails above this
+    private static final long MAX_THUMBNAIL_BYTES = 200 * 1024;
+
+    private final CacheProperties properties;
+    private final Path directory;
+    private final HttpClient httpClient;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public ThumbnailCache(CacheProperties properties, FileStorageProperties storageProperties) {
+        this.properties = properties;
+        this.directory = storageProperties.getThumbnailDirectory();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(properties.getThumbnailTimeoutSeconds()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * The cached cover for the video, downloading it if needed
+     * @return a future that completes with the JPEG, or with null if there is none
+     */
+    public CompletableFuture<Path> fetch(String videoId) {
+        if (!properties.isThumbnailsEnabled() || !YouTubeUrlParser.isVideoId(videoId)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Path cached = getCached(videoId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(videoId, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        download(videoId).whenComplete((path, ex) -> {
+            inFlight.remove(videoId);
+            if (ex != null) {
+                log.debug("No thumbnail for {}: {}", videoId, ex.getMessage());
+                deleteQuietly(partialPathFor(videoId));
+            }
+            created.complete(ex == null ? path : null);
+        });
+        return created;
+    }
+
+    /**
+     * @return the cached cover, or null if it hasn't been downloaded
+     */
+    public Path getCached(String videoId) {
+        if (!YouTubeUrlParser.isVideoId(videoId)) {
+            return null;
+        }
+        Path path = pathFor(videoId);
+        return Files.exists(path) ? path : null;
+    }
+
+    private CompletableFuture<Path> download(String videoId) {
+        Path target = pathFor(videoId);
+        Path partial = partialPathFor(videoId);
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create(properties.getThumbnailBaseUrl() + "/" + videoId + "/mqdefault.jpg"))
+                .timeout(Duration.ofSeconds(properties.getThumbnailTimeoutSeconds()))
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofFile(partial))
+                .thenApply(response -> {
+                    try {
+                        if (response.statusCode() != 200 || Files.size(partial) > MAX_THUMBNAIL_BYTES) {
+                            Files.deleteIfExists(partial);
+                            log.debug("Unusable thumbnail for {}: HTTP {}", videoId, response.statusCode());
+                            return null;
+                        }
+                        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        return target;
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+    }
+
+    /**
+     * Remove covers past their TTL, then the oldest ones beyond the entry limit
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 600000)
+    public void evictExpired() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(properties.getThumbnailTtlHours()));
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> byAge = files
+                    .filter(path -> path.getFileName().toString().endsWith(".jpg"))
+                    .sorted(Comparator.comparing(ThumbnailCache::lastModified, Comparator.reverseOrder()))
+                    .toList();
+
+            int deleted = 0;
+            for (int i = 0; i < byAge.size(); i++) {
+                Path path = byAge.get(i);
+                if (i >= properties.getThumbnailMaxEntries() || lastModified(path).toInstant().isBefore(cutoff)) {
+                    if (Files.deleteIfExists(path)) {
+                        deleted++;
+                    }
+                }
+            }
+            if (deleted > 0) {
+                log.info("Evicted {} cached thumbnails", deleted);
+            }
+        } catch (IOException e) {
+            log.error("Failed to evict thumbnails in {}", directory, e);
+        }
+    }
+
+    private Path pathFor(String videoId) {
+        return directory.resolve(videoId + ".jpg");
+    }
+
+    private Path partialPathFor(String videoId) {
+        return directory.resolve(videoId + ".jpg.part");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.cache;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.CacheProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.CachedAudio;
+import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.LastCoderBoy.telegram_youtube_bot.util.BoundedCache;
+import com.LastCoderBoy.telegram_youtube_bot.util.YouTubeUrlValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+@Slf4j
+@Service
+public class VideoCacheService {
+
+    private final YouTubeUrlValidator urlValidator;
+    private final BoundedCache<String, VideoMetadata> metadataCache;
+    private final BoundedCache<String, CachedAudio> audioCache;
+
+    public VideoCacheService(YouTubeUrlValidator urlValidator, CacheProperties properties) {
+        this.urlValidator = urlValidator;
+        this.metadataCache = new BoundedCache<>(properties.getMetadataMaxEntries(),
+                Duration.ofMinutes(properties.getMetadataTtlMinutes()));
+        this.audioCache = new BoundedCache<>(properties.getAudioMaxEntries(),
+                Duration.ofHours(properties.getAudioTtlHours()));
+    }
+
+    /**
+     * Cache key for a URL: the video ID, or the URL itself when no ID can be extracted
+     */
+    public String keyFor(String url) {
+        String videoId = urlValidator.extractVideoId(url);
+        return videoId != null ? videoId : url.trim();
+    }
+
+    public VideoMetadata getMetadata(String key) {
+        return metadataCache.get(key);
+    }
+
+    public void putMetadata(String key, VideoMetadata metadata) {
+        metadataCache.put(key, metadata);
+    }
+
+    public CachedAudio getAudio(String key) {
+        return audioCache.get(key);
+    }
+
+    public void putAudio(String key, CachedAudio audio) {
+        audioCache.put(key, audio);
+        log.debug("Cached audio file_id for {}", key);
+    }
+
+    public void evictAudio(String key) {
+        audioCache.remove(key);
+    }
+}
@@ -0,0 +1,402 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.concurrency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Conversion executor that starts the cheapest waiting job first instead of the oldest.
+ * A job's place in the queue is its submit time plus its cost times the aging weight, so a
+ * long job waits behind short ones that arrive soon after it, but not forever: once it has
+ * waited longer than its cost allows it goes ahead of everything submitted later.
+ * <p>
+ * Fast-lane workers only take jobs up to the fast-lane cost, so short jobs keep moving while
+ * every general worker is busy with a long one. Like {@code ThreadPoolTaskExecutor}, extra
+ * general workers up to the max are started only when the queue is full.
+ * <p>
+ * Without workers there is no queue: every job starts on its own thread straight away.
+ */
+@Slf4j
+public class PriorityConversionExecutor implements AsyncTaskExecutor {
+
+    /** Cost of a job whose size isn't known; never fast-lane, queued like one at the fast-lane limit */
+    public static final long UNKNOWN_COST = -1;
+
+    // About a day of audio; keeps cost × weight far from overflowing
+    private static final long MAX_COST = 86_400;
+
+    private ThreadFactory threadFactory = Thread.ofPlatform().name("async-conversion-", 0).factory();
+    private TaskDecorator taskDecorator = runnable -> runnable;
+    private int corePoolSize;
+    private int maxPoolSize;
+    private int fastLaneWorkers;
+    private long fastLaneMaxCost;
+    private int queueCapacity = Integer.MAX_VALUE;
+    private long agingNanosPerCost;
+    private long awaitTerminationMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Job> shortJobs = new PriorityQueue<>();
+    private final PriorityQueue<Job> longJobs = new PriorityQueue<>();
+    private final Map<String, Job> queuedById = new HashMap<>();
+    private long sequence;
+    private int generalWorkers;
+    private int liveWorkers;
+    private boolean shutdown;
+
+    // Thread-per-job mode only
+    private final AtomicInteger running = new AtomicInteger();
+
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    /**
+     * General workers started up front; 0 runs every job on its own thread
+     */
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public void setFastLaneWorkers(int fastLaneWorkers) {
+        this.fastLaneWorkers = fastLaneWorkers;
+    }
+
+    public void setFastLaneMaxCost(long fastLaneMaxCost) {
+        this.fastLaneMaxCost = fastLaneMaxCost;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * How much longer a job may be held back per unit of cost; 0 makes the queue FIFO
+     */
+    public void setAgingNanosPerCost(long agingNanosPerCost) {
+        this.agingNanosPerCost = agingNanosPerCost;
+    }
+
+    public void setAwaitTerminationMillis(long awaitTerminationMillis) {
+        this.awaitTerminationMillis = awaitTerminationMillis;
+    }
+
+    public void initialize() {
+        lock.lock();
+        try {
+            for (int i = 0; i < corePoolSize; i++) {
+                startWorker(false, true);
+            }
+            for (int i = 0; corePoolSize > 0 && i < fastLaneWorkers; i++) {
+                startWorker(true, true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a job of unknown cost
+     */
+    @Override
+    public void execute(Runnable task) {
+        execute(null, UNKNOWN_COST, task);
+    }
+
+    /**
+     * Queue a job by its cost
+     * @param id lets a still queued job be found again by {@link #expedite(String)}, may be null
+     * @throws TaskRejectedException if the queue is full or the executor is shut down
+     */
+    public void execute(String id, long cost, Runnable task) {
+        enqueue(id, cost, task, null);
+    }
+
+    // abort, if any, is called with the reason when the job is drained instead of run
+    private void enqueue(String id, long cost, Runnable task, Consumer<Throwable> abort) {
+        Runnable decorated = taskDecorator.decorate(task);
+
+        if (corePoolSize <= 0) {
+            if (isShutdown()) {
+                throw new TaskRejectedException("Conversion executor is shut down");
+            }
+            running.incrementAndGet();
+            threadFactory.newThread(() -> {
+                try {
+                    runJob(decorated);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }).start();
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new TaskRejectedException("Conversion executor is shut down");
+            }
+            if (queuedById.size() >= queueCapacity) {
+                if (generalWorkers >= maxPoolSize) {
+                    throw new TaskRejectedException("Conversion queue is full (" + queueCapacity + " waiting)");
+                }
+                startWorker(false, false);
+            }
+
+            long now = System.nanoTime();
+            boolean shortJob = cost >= 0 && cost <= fastLaneMaxCost;
+            long weightedCost = Math.min(cost < 0 ? fastLaneMaxCost : cost, MAX_COST) * agingNanosPerCost;
+            Job job = new Job(id, decorated, abort, shortJob, now + weightedCost, sequence++, now);
+            (shortJob ? shortJobs : longJobs).add(job);
+            queuedById.put(job.key(), job);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a job by its cost and get its result
+     * @see #execute(String, long, Runnable)
+     */
+    public <T> CompletableFuture<T> submitCompletable(String id, long cost, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        enqueue(id, cost, () -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }, future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * Move a queued job to the front, e.g. after it was cancelled, so it can finish up
+     * without waiting behind the backlog
+     * @return false if the job is not queued (already running or unknown)
+     */
+    public boolean expedite(String id) {
+        lock.lock();
+        try {
+            Job job = queuedById.get(id);
+            if (job == null) {
+                return false;
+            }
+            (job.shortJob() ? shortJobs : longJobs).remove(job);
+            Job first = new Job(job.id(), job.task(), job.abort(), true, Long.MIN_VALUE, job.sequence(),
+                    job.submittedAt());
+            shortJobs.add(first);
+            queuedById.put(id, first);
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take every queued job that has an id off the queue, so it never starts here;
+     * used to hand waiting work over to the next instance on shutdown.
+     * Futures from {@link #submitCompletable} complete exceptionally with the reason.
+     * @return the ids, in the order the jobs would have started
+     */
+    public List<String> drainQueued(Throwable reason) {
+        List<Job> taken = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Job job : queuedById.values()) {
+                if (job.id() != null) {
+                    taken.add(job);
+                }
+            }
+            taken.sort(null);
+            for (Job job : taken) {
+                (job.shortJob() ? shortJobs : longJobs).remove(job);
+                queuedById.remove(job.key());
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Outside the lock: completing a future runs its callbacks on this thread
+        for (Job job : taken) {
+            if (job.abort() != null) {
+                job.abort().accept(reason);
+            }
+        }
+        return taken.stream().map(Job::id).toList();
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queuedById.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queued jobs a fast-lane worker may take
+     */
+    public int getShortQueueSize() {
+        lock.lock();
+        try {
+            return shortJobs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue capacity, or -1 when jobs are never queued
+     */
+    public int getQueueCapacity() {
+        return corePoolSize > 0 ? queueCapacity : -1;
+    }
+
+    /**
+     * Stop taking jobs, let the queued and running ones finish within the termination timeout
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTerminationMillis);
+        try {
+            while (System.nanoTime() < deadline && (running.get() > 0 || liveWorkers() > 0)) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int left = running.get() + getQueueSize();
+        if (left > 0) {
+            log.warn("Conversion executor shut down with {} job(s) unfinished", left);
+        }
+    }
+
+    private boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int liveWorkers() {
+        lock.lock();
+        try {
+            return liveWorkers;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void startWorker(boolean fastLane, boolean core) {
+        if (!fastLane) {
+            generalWorkers++;
+        }
+        liveWorkers++;
+        threadFactory.newThread(() -> work(fastLane, core)).start();
+    }
+
+    private void work(boolean fastLane, boolean core) {
+        while (true) {
+            Job job;
+            lock.lock();
+            try {
+                while ((job = next(fastLane)) == null) {
+                    // Extra workers only help with a full queue; core ones wait, until shutdown drains the queue
+                    if (shutdown || !core) {
+                        if (!fastLane) {
+                            generalWorkers--;
+                        }
+                        liveWorkers--;
+                        return;
+                    }
+                    changed.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            log.debug("Starting {} job {} after {} ms in the queue", fastLane ? "fast-lane" : "queued",
+                    job.key(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.submittedAt()));
+            runJob(job.task());
+        }
+    }
+
+    // Called with the lock held
+    private Job next(boolean fastLane) {
+        Job shortest = shortJobs.peek();
+        Job longest = fastLane ? null : longJobs.peek();
+        Job job;
+        if (longest == null || (shortest != null && shortest.compareTo(longest) < 0)) {
+            job = shortJobs.poll();
+        } else {
+            job = longJobs.poll();
+        }
+        if (job != null) {
+            queuedById.remove(job.key());
+        }
+        return job;
+    }
+
+    private static void runJob(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            log.error("Conversion job failed", e);
+        } finally {
+            // A cancel aimed at the finished job must not hit the next one on this thread
+            Thread.interrupted();
+        }
+    }
+
+    private record Job(String id, Runnable task, Consumer<Throwable> abort, boolean shortJob, long priority,
+                       long sequence, long submittedAt) implements Comparable<Job> {
+
+        // Jobs without an id are still tracked for the queue size
+        String key() {
+            return id != null ? id : "#" + sequence;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = Long.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
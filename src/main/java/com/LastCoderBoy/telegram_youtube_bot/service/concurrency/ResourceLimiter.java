@@ -0,0 +1,77 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.concurrency;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.AsyncProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps concurrent use of the real bottlenecks (yt-dlp downloads, FFmpeg processes, uploads)
+ * independently of how many threads run tasks. With virtual threads this is the only limit.
+ */
+@Slf4j
+@Component
+public class ResourceLimiter {
+
+    public enum Resource {
+        DOWNLOAD,
+        CONVERSION,
+        UPLOAD
+    }
+
+    private final Map<Resource, Semaphore> permits = new EnumMap<>(Resource.class);
+
+    public ResourceLimiter(AsyncProperties properties, MeterRegistry registry) {
+        int conversions = properties.getMaxConcurrentConversions() > 0
+                ? properties.getMaxConcurrentConversions()
+                : Runtime.getRuntime().availableProcessors();
+
+        permits.put(Resource.DOWNLOAD, new Semaphore(properties.getMaxConcurrentDownloads(), true));
+        permits.put(Resource.CONVERSION, new Semaphore(conversions, true));
+        permits.put(Resource.UPLOAD, new Semaphore(properties.getMaxConcurrentUploads(), true));
+
+        permits.forEach((resource, semaphore) -> {
+            String tag = resource.name().toLowerCase();
+            Gauge.builder("resource.permits.available", semaphore, Semaphore::availablePermits)
+                    .tag("resource", tag)
+                    .register(registry);
+            Gauge.builder("resource.permits.waiting", semaphore, Semaphore::getQueueLength)
+                    .tag("resource", tag)
+                    .register(registry);
+        });
+
+        log.info("Resource limits: {} downloads, {} conversions, {} uploads",
+                properties.getMaxConcurrentDownloads(), conversions, properties.getMaxConcurrentUploads());
+    }
+
+    /**
+     * Run the body while holding a permit for the resource
+     * @throws CancellationException if interrupted while waiting for a permit
+     */
+    public <T> T withPermit(Resource resource, Supplier<T> body) {
+        Semaphore semaphore = permits.get(resource);
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a " + resource + " permit");
+        }
+
+        try {
+            return body.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public int waiting(Resource resource) {
+        return permits.get(resource).getQueueLength();
+    }
+}
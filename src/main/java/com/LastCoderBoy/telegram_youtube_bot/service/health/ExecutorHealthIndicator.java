@@ -0,0 +1,52 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.health;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.AsyncProperties;
+import com.LastCoderBoy.telegram_youtube_bot.config.ConversionExecutorStats;
+import com.LastCoderBoy.telegram_youtube_bot.config.HealthProperties;
+import com.LastCoderBoy.telegram_youtube_bot.service.concurrency.ResourceLimiter;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversion backlog. Out of service when the executor queue is nearly full (platform mode)
+ * or too many tasks wait for download/conversion permits (virtual mode, which has no queue),
+ * so the readiness probe stops traffic before requests start being rejected.
+ */
+@Component
+public class ExecutorHealthIndicator implements HealthIndicator {
+
+    private final ConversionExecutorStats executorStats;
+    private final ResourceLimiter resourceLimiter;
+    private final AsyncProperties asyncProperties;
+    private final HealthProperties properties;
+
+    public ExecutorHealthIndicator(ConversionExecutorStats executorStats, ResourceLimiter resourceLimiter,
+                                   AsyncProperties asyncProperties, HealthProperties properties) {
+        this.executorStats = executorStats;
+        this.resourceLimiter = resourceLimiter;
+        this.asyncProperties = asyncProperties;
+        this.properties = properties;
+    }
+
+    @Override
+    public Health health() {
+        int queued = executorStats.getQueueSize();
+        int capacity = executorStats.getQueueCapacity();
+        int waiting = resourceLimiter.waiting(ResourceLimiter.Resource.DOWNLOAD)
+                + resourceLimiter.waiting(ResourceLimiter.Resource.CONVERSION);
+
+        boolean saturated = capacity > 0
+                ? queued >= capacity * properties.getQueueSaturationRatio()
+                : waiting >= properties.getMaxWaitingTasks();
+
+        return (saturated ? Health.outOfService() : Health.up())
+                .withDetail("mode", asyncProperties.getMode().name().toLowerCase())
+                .withDetail("active", executorStats.getActiveCount())
+                .withDetail("queued", queued)
+                .withDetail("queuedShort", executorStats.getShortQueueSize())
+                .withDetail("queueCapacity", capacity)
+                .withDetail("waitingForPermits", waiting)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.health;
+
+import com.LastCoderBoy.telegram_youtube_bot.bot.TelegramBotService;
+import com.LastCoderBoy.telegram_youtube_bot.config.HealthProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.GetMe;
+import org.telegram.telegrambots.meta.api.objects.User;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bot API reachability via getMe, checked in the background at most once per interval
+ * and reported from the last result. Not part of the readiness group: Telegram being
+ * unreachable affects every node alike, so taking them all out of rotation wouldn't help.
+ */
+@Slf4j
+@Component
+public class TelegramHealthIndicator implements HealthIndicator {
+
+    private final TelegramBotService bot;
+    private final HealthProperties properties;
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private volatile Health last = Health.unknown().withDetail("reason", "Not checked yet").build();
+    private volatile long checkedAtNanos;
+
+    public TelegramHealthIndicator(TelegramBotService bot, HealthProperties properties) {
+        this.bot = bot;
+        this.properties = properties;
+    }
+
+    @Override
+    public Health health() {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(properties.getTelegramCheckIntervalSeconds());
+        boolean stale = checkedAtNanos == 0 || System.nanoTime() - checkedAtNanos > intervalNanos;
+        if (stale && checking.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("telegram-health").start(this::check);
+        }
+        return last;
+    }
+
+    private void check() {
+        long startedAt = System.nanoTime();
+        try {
+            User me = bot.execute(new GetMe());
+            last = Health.up()
+                    .withDetail("username", me.getUserName())
+                    .withDetail("latencyMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+                    .withDetail("checkedAt", Instant.now().toString())
+                    .build();
+        } catch (TelegramApiException e) {
+            log.debug("Telegram health check failed: {}", e.getMessage());
+            last = Health.down()
+                    .withDetail("error", String.valueOf(e.getMessage()))
+                    .withDetail("checkedAt", Instant.now().toString())
+                    .build();
+        } finally {
+            checkedAtNanos = System.nanoTime();
+            checking.set(false);
+        }
+    }
+}
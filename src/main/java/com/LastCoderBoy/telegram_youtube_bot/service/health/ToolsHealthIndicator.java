@@ -0,0 +1,45 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.health;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.HealthProperties;
+import com.LastCoderBoy.telegram_youtube_bot.service.tools.ToolVersionProbe;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * yt-dlp and ffmpeg availability from the cached version probe. A stale result triggers
+ * a background re-probe, so the health endpoint never waits on a process.
+ * Out of service until the first probe finishes, down while either tool can't be run.
+ */
+@Component
+public class ToolsHealthIndicator implements HealthIndicator {
+
+    private final ToolVersionProbe probe;
+    private final HealthProperties properties;
+
+    public ToolsHealthIndicator(ToolVersionProbe probe, HealthProperties properties) {
+        this.probe = probe;
+        this.properties = properties;
+    }
+
+    @Override
+    public Health health() {
+        probe.refreshIfOlderThan(Duration.ofSeconds(properties.getToolCheckIntervalSeconds()));
+
+        Map<String, ToolVersionProbe.ToolVersion> versions = probe.getVersions();
+        if (versions.isEmpty()) {
+            return Health.outOfService().withDetail("reason", "Version check still running").build();
+        }
+
+        Health.Builder builder = versions.values().stream().allMatch(ToolVersionProbe.ToolVersion::isAvailable)
+                ? Health.up()
+                : Health.down();
+        versions.values().forEach(version -> builder.withDetail(version.tool(), version.isAvailable()
+                ? Map.of("path", version.path(), "version", version.version())
+                : Map.of("path", version.path(), "error", String.valueOf(version.error()))));
+        return builder.withDetail("checkedAt", probe.getProbedAt().toString()).build();
+    }
+}
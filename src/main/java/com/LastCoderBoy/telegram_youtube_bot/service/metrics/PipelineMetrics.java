@@ -0,0 +1,158 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.metrics;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ConversionExecutorStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for the conversion pipeline, scraped via /actuator/prometheus
+ */
+@Slf4j
+@Component
+public class PipelineMetrics {
+
+    public static final String METADATA = "metadata";
+    public static final String DOWNLOAD = "download";
+    public static final String CONVERSION = "conversion";
+    public static final String SIZE_CHECK = "size_check";
+    public static final String UPLOAD = "upload";
+
+    private final MeterRegistry registry;
+    private final DistributionSummary inputBytes;
+    private final DistributionSummary outputBytes;
+    private final DistributionSummary audioDuration;
+    private final AtomicBoolean firstUpdateSeen = new AtomicBoolean();
+
+    public PipelineMetrics(MeterRegistry registry, ConversionExecutorStats executorStats) {
+        this.registry = registry;
+
+        this.inputBytes = DistributionSummary.builder("pipeline.input.size")
+                .description("Size of the downloaded source audio")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.outputBytes = DistributionSummary.builder("pipeline.output.size")
+                .description("Size of the converted MP3")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.audioDuration = DistributionSummary.builder("pipeline.audio.duration")
+                .description("Duration of the requested videos")
+                .baseUnit("seconds")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        Gauge.builder("conversion.executor.active", executorStats, ConversionExecutorStats::getActiveCount)
+                .description("Conversions currently running")
+                .register(registry);
+        Gauge.builder("conversion.executor.queued", executorStats, ConversionExecutorStats::getQueueSize)
+                .description("Conversions waiting for a worker")
+                .register(registry);
+        Gauge.builder("conversion.executor.queued.short", executorStats, ConversionExecutorStats::getShortQueueSize)
+                .description("Waiting conversions short enough for the fast lane")
+                .register(registry);
+    }
+
+    /**
+     * Time a pipeline stage, tagged by outcome and exception type
+     */
+    public <T> T timeStage(String stage, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            exception = exceptionName(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("pipeline.stage")
+                    .description("Time spent in each conversion pipeline stage")
+                    .tag("stage", stage)
+                    .tag("outcome", "none".equals(exception) ? "success" : "failure")
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    public void runStage(String stage, Runnable body) {
+        timeStage(stage, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    /**
+     * Count a finished task by its final outcome
+     */
+    public void recordTask(String outcome, Throwable failure) {
+        Counter.builder("pipeline.tasks")
+                .description("Finished conversion tasks")
+                .tag("outcome", outcome)
+                .tag("exception", failure == null ? "none" : exceptionName(failure))
+                .register(registry)
+                .increment();
+    }
+
+    public void recordMetadataCache(boolean hit) {
+        Counter.builder("pipeline.metadata.cache")
+                .description("Metadata lookups served from cache")
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    public void recordSourceCache(boolean hit) {
+        Counter.builder("pipeline.source.cache")
+                .description("Conversions made from a source another format already downloaded")
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    public void recordInputBytes(long bytes) {
+        inputBytes.record(bytes);
+    }
+
+    public void recordOutputBytes(long bytes) {
+        outputBytes.record(bytes);
+    }
+
+    public void recordAudioDuration(Long seconds) {
+        if (seconds != null && seconds > 0) {
+            audioDuration.record(seconds);
+        }
+    }
+
+    /**
+     * Record the JVM uptime when the first update arrives, once per process:
+     * the startup time as users see it, including bot registration and the first poll
+     */
+    public void recordFirstUpdate() {
+        if (firstUpdateSeen.get() || !firstUpdateSeen.compareAndSet(false, true)) {
+            return;
+        }
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        TimeGauge.builder("bot.startup.first.update", () -> uptimeMillis, TimeUnit.MILLISECONDS)
+                .description("Time from JVM start to the first handled update")
+                .register(registry);
+        log.info("First update handled {} ms after JVM start", uptimeMillis);
+    }
+
+    private static String exceptionName(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,255 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.replay;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.RecordingProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records incoming updates for offline replay, one JSON object per line:
+ * {@code {"at": <epoch millis>, "update": {...}}}. Updates are queued and written by a
+ * background thread, so recording never holds up the bot; when the queue is full they are
+ * dropped and counted. The file is rotated to {@code <name>.1} once it exceeds the configured size.
+ * <p>
+ * With anonymization on, user and chat ids are replaced by salted hashes, stable for the
+ * salt so a chat's requests stay together, and names are dropped. Message text is kept,
+ * since that is what carries the YouTube links.
+ */
+@Slf4j
+@Component
+public class UpdateRecorder {
+
+    // Objects describing a user or chat
+    private static final Set<String> IDENTITY_FIELDS = Set.of("from", "chat", "sender_chat", "user",
+            "forward_from", "forward_from_chat", "via_bot", "new_chat_members", "left_chat_member");
+    private static final Set<String> PERSONAL_FIELDS = Set.of("last_name", "username", "title", "bio",
+            "language_code", "phone_number", "contact", "location");
+
+    private static final Recorded STOP = new Recorded(0, null);
+
+    private final RecordingProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setDefaultPropertyInclusion(JsonInclude.Value.construct(JsonInclude.Include.NON_NULL,
+                    JsonInclude.Include.NON_NULL));
+    private final BlockingQueue<Recorded> queue;
+    private final Counter recorded;
+    private final Counter dropped;
+    private byte[] salt;
+    private Thread writerThread;
+    private BufferedWriter writer;
+
+    public UpdateRecorder(RecordingProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.recorded = Counter.builder("recording.updates")
+                .description("Incoming updates written to the recording")
+                .tag("outcome", "recorded")
+                .register(registry);
+        this.dropped = Counter.builder("recording.updates")
+                .description("Incoming updates written to the recording")
+                .tag("outcome", "dropped")
+                .register(registry);
+    }
+
+    private record Recorded(long receivedAtMillis, Update update) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.getSalt() == null || properties.getSalt().isBlank()) {
+            salt = new byte[16];
+            new SecureRandom().nextBytes(salt);
+        } else {
+            salt = properties.getSalt().getBytes(StandardCharsets.UTF_8);
+        }
+        writerThread = Thread.ofVirtual().name("update-recorder").start(this::writeLoop);
+        log.info("Recording updates to {}{}", properties.getPath(),
+                properties.isAnonymize() ? " with anonymized ids" : "");
+    }
+
+    /**
+     * Queue the update for writing; returns straight away
+     */
+    public void record(Update update) {
+        if (writerThread == null) {
+            return;
+        }
+        if (!queue.offer(new Recorded(System.currentTimeMillis(), update))) {
+            dropped.increment();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        try {
+            // The queue may be full if the writer is stuck or gone; don't wait on it forever
+            if (!queue.offer(STOP, 5, TimeUnit.SECONDS)) {
+                writerThread.interrupt();
+            }
+            if (!writerThread.join(Duration.ofSeconds(5))) {
+                log.warn("Update recorder did not finish writing within 5 s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        Path path = Path.of(properties.getPath());
+        try {
+            while (true) {
+                Recorded next = queue.take();
+                if (next == STOP) {
+                    break;
+                }
+                write(path, next);
+                if (queue.isEmpty()) {
+                    flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeWriter();
+        }
+    }
+
+    /**
+     * A failed flush (disk full, I/O error) drops the writer; the next update opens a fresh one
+     */
+    private void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Failed to flush update recording: {}", e.getMessage());
+            closeWriter();
+        }
+    }
+
+    private void write(Path path, Recorded next) {
+        try {
+            ObjectNode line = objectMapper.createObjectNode();
+            line.put("at", next.receivedAtMillis());
+            JsonNode update = objectMapper.valueToTree(next.update());
+            if (properties.isAnonymize()) {
+                anonymize(update, false);
+            }
+            line.set("update", update);
+
+            rotateIfNeeded(path);
+            BufferedWriter out = writer(path);
+            out.write(objectMapper.writeValueAsString(line));
+            out.newLine();
+            recorded.increment();
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Failed to record update {}: {}", next.update().getUpdateId(), e.getMessage());
+            dropped.increment();
+        }
+    }
+
+    private void anonymize(JsonNode node, boolean identity) {
+        if (node instanceof ObjectNode object) {
+            if (identity) {
+                JsonNode id = object.get("id");
+                if (id != null && id.canConvertToLong()) {
+                    long pseudonym = pseudonym(id.asLong());
+                    object.put("id", pseudonym);
+                    if (object.has("first_name")) {
+                        object.put("first_name", "User" + Math.abs(pseudonym % 10000));
+                    }
+                }
+                object.remove(PERSONAL_FIELDS);
+            }
+            List<Map.Entry<String, JsonNode>> fields = new ArrayList<>(object.properties());
+            for (Map.Entry<String, JsonNode> field : fields) {
+                anonymize(field.getValue(), IDENTITY_FIELDS.contains(field.getKey()));
+            }
+        } else if (node != null && node.isArray()) {
+            for (JsonNode element : node) {
+                anonymize(element, identity);
+            }
+        }
+    }
+
+    /**
+     * Salted hash of the id with the same sign, so private chats stay positive and groups negative
+     */
+    private long pseudonym(long id) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            byte[] hash = digest.digest(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+            // 48 bits keeps the value within what JavaScript and Telegram's own ids use
+            long value = (ByteBuffer.wrap(hash).getLong() >>> 16) + 1;
+            return id < 0 ? -value : value;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private BufferedWriter writer(Path path) throws IOException {
+        if (writer == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private void rotateIfNeeded(Path path) throws IOException {
+        if (Files.exists(path) && Files.size(path) > properties.getMaxBytes()) {
+            closeWriter();
+            Files.move(path, Path.of(path + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("Failed to close update recording", e);
+            }
+            writer = null;
+        }
+    }
+}
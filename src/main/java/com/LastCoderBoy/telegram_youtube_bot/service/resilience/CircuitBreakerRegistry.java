@@ -0,0 +1,62 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.resilience;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ResilienceProperties;
+import com.LastCoderBoy.telegram_youtube_bot.util.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One circuit breaker per external dependency (yt-dlp, ffmpeg, telegram), with its state
+ * as the circuit.breaker.state gauge: 0 closed, 1 half-open, 2 open
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+    public static final String YT_DLP = "yt-dlp";
+    public static final String FFMPEG = "ffmpeg";
+    public static final String TELEGRAM = "telegram";
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry registry;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreakerRegistry(ResilienceProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    public CircuitBreaker get(String name) {
+        return breakers.computeIfAbsent(name, this::create);
+    }
+
+    public Map<String, CircuitBreaker> getAll() {
+        return Map.copyOf(breakers);
+    }
+
+    private CircuitBreaker create(String name) {
+        CircuitBreaker breaker = new CircuitBreaker(name,
+                properties.getBreakerWindowSize(),
+                properties.getBreakerMinimumCalls(),
+                properties.getBreakerFailureRateThreshold(),
+                TimeUnit.SECONDS.toNanos(properties.getBreakerOpenSeconds()),
+                properties.getBreakerHalfOpenCalls());
+        Gauge.builder("circuit.breaker.state", breaker, CircuitBreakerRegistry::stateValue)
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("name", name)
+                .register(registry);
+        return breaker;
+    }
+
+    private static double stateValue(CircuitBreaker breaker) {
+        return switch (breaker.getState()) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+        };
+    }
+}
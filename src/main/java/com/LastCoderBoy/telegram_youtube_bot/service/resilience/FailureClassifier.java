@@ -0,0 +1,69 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.resilience;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides from a tool's exit code and output whether a failure is worth another attempt
+ */
+public final class FailureClassifier {
+
+    // Definitive answers about the video; checked first since they often mention HTTP errors too
+    private static final List<String> YT_DLP_PERMANENT = List.of(
+            "video unavailable",
+            "private video",
+            "sign in to confirm your age",
+            "members-only",
+            "copyright",
+            "has been removed",
+            "not available in your country",
+            "this live event will begin",
+            "unsupported url",
+            "is not a valid url",
+            "requested format is not available"
+    );
+
+    // Throttling and network trouble between us and YouTube
+    private static final List<String> YT_DLP_TRANSIENT = List.of(
+            "http error 403",
+            "http error 429",
+            "too many requests",
+            "http error 500",
+            "http error 502",
+            "http error 503",
+            "http error 504",
+            "timed out",
+            "connection reset",
+            "connection refused",
+            "remote end closed connection",
+            "temporary failure in name resolution",
+            "network is unreachable",
+            "incompleteread",
+            "unable to download video data"
+    );
+
+    private static final List<String> FFMPEG_TRANSIENT = List.of(
+            "cannot allocate memory",
+            "resource temporarily unavailable"
+    );
+
+    // 128 + SIGKILL / SIGTERM: killed from outside (OOM killer, deploy), not a bad input
+    private static final int KILLED = 137;
+    private static final int TERMINATED = 143;
+
+    private FailureClassifier() {
+    }
+
+    public static boolean isRetryableYtDlp(int exitCode, String output) {
+        String text = output == null ? "" : output.toLowerCase(Locale.ROOT);
+        if (YT_DLP_PERMANENT.stream().anyMatch(text::contains)) {
+            return false;
+        }
+        return exitCode == KILLED || exitCode == TERMINATED || YT_DLP_TRANSIENT.stream().anyMatch(text::contains);
+    }
+
+    public static boolean isRetryableFfmpeg(int exitCode, String output) {
+        String text = output == null ? "" : output.toLowerCase(Locale.ROOT);
+        return exitCode == KILLED || exitCode == TERMINATED || FFMPEG_TRANSIENT.stream().anyMatch(text::contains);
+    }
+}
@@ -0,0 +1,111 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.resilience;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ResilienceProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.util.Backoff;
+import com.LastCoderBoy.telegram_youtube_bot.util.CancellationHandle;
+import com.LastCoderBoy.telegram_youtube_bot.util.CircuitBreaker;
+import com.LastCoderBoy.telegram_youtube_bot.util.TaskContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs a call through a circuit breaker and retries transient failures with jittered backoff.
+ * Only transient failures count against the breaker: a private video means yt-dlp works fine.
+ */
+@Slf4j
+@Component
+public class Retrier {
+
+    private final ResilienceProperties properties;
+    private final MeterRegistry registry;
+
+    public Retrier(ResilienceProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    /**
+     * @param operation name for logs and the resilience.calls metric
+     * @param retryable whether a failure is transient
+     * @param rejected builds the exception thrown while the breaker refuses calls
+     */
+    public <T> T call(String operation, CircuitBreaker breaker, int maxAttempts, Supplier<T> call,
+                      Predicate<RuntimeException> retryable, Function<String, RuntimeException> rejected) {
+        ConversionTask task = TaskContext.current();
+        CancellationHandle cancellation = task != null ? task.getCancellation() : null;
+
+        for (int attempt = 1; ; attempt++) {
+            if (breaker.tryAcquire() > 0) {
+                count(operation, "rejected");
+                throw rejected.apply(breaker.getName() + " is failing too often, try again in a minute");
+            }
+
+            try {
+                T result = call.get();
+                breaker.recordSuccess();
+                count(operation, attempt == 1 ? "success" : "recovered");
+                return result;
+            } catch (RuntimeException e) {
+                if (cancellation != null && cancellation.isCancelled()) {
+                    breaker.recordIgnored();
+                    throw e;
+                }
+                boolean transientFailure = retryable.test(e);
+                if (transientFailure) {
+                    breaker.recordFailure();
+                } else {
+                    breaker.recordSuccess();
+                }
+                if (!transientFailure || attempt >= maxAttempts) {
+                    count(operation, transientFailure ? "exhausted" : "permanent");
+                    throw e;
+                }
+
+                long delayMillis = Backoff.jittered(properties.getBaseBackoffMillis(), attempt,
+                        properties.getMaxBackoffMillis());
+                log.warn("{} failed (attempt {}/{}), retrying in {} ms: {}", operation, attempt, maxAttempts,
+                        delayMillis, firstLine(e.getMessage()));
+                count(operation, "retry");
+                sleep(delayMillis);
+                if (cancellation != null) {
+                    cancellation.throwIfCancelled();
+                }
+            }
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted during retry backoff");
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("resilience.calls")
+                .description("Calls through the retry layer by outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+}
@@ -0,0 +1,157 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.shutdown;
+
+import com.LastCoderBoy.telegram_youtube_bot.bot.TelegramBotService;
+import com.LastCoderBoy.telegram_youtube_bot.config.BotInitializer;
+import com.LastCoderBoy.telegram_youtube_bot.config.ShutdownProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.service.ConversionOrchestrationService;
+import com.LastCoderBoy.telegram_youtube_bot.service.task.TaskRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered shutdown, run before the executors and the outbound dispatcher are destroyed:
+ * <ol>
+ *   <li>stop polling, so no new updates arrive</li>
+ *   <li>take queued conversions off the queue and checkpoint them for the next instance</li>
+ *   <li>let running conversions and their uploads finish until the drain deadline</li>
+ *   <li>at the deadline, kill the yt-dlp/FFmpeg processes of what is still converting and hand
+ *   those over too; uploads already under way are left to finish</li>
+ * </ol>
+ * The next instance picks the checkpoint up once it is ready.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GracefulShutdownCoordinator implements SmartLifecycle {
+
+    private static final long POLL_MILLIS = 200;
+
+    private final ShutdownProperties properties;
+    private final BotInitializer botInitializer;
+    private final TelegramBotService bot;
+    private final ConversionOrchestrationService orchestrationService;
+    private final JobCheckpointStore checkpointStore;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Highest phase stops first: ahead of the web server, while the dispatcher can still upload
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    /**
+     * Run the jobs the previous instance handed off
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeHandedOffJobs() {
+        List<JobCheckpointStore.CheckpointedJob> jobs = checkpointStore.takeAll();
+        if (jobs.isEmpty()) {
+            return;
+        }
+        log.info("Resuming {} job(s) handed off by the previous instance", jobs.size());
+        for (JobCheckpointStore.CheckpointedJob job : jobs) {
+            try {
+                bot.resumeConversion(job.chatId(), job.youtubeUrl(), job.options());
+            } catch (RuntimeException e) {
+                log.error("Could not resume job {} for chat {}", job.taskId(), job.chatId(), e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + TimeUnit.SECONDS.toNanos(properties.getDrainTimeoutSeconds());
+
+        // 1. Nothing new from Telegram
+        botInitializer.stopPolling();
+
+        // 2. Queued jobs won't start here; write them down before anything else can go wrong
+        List<ConversionTask> handedOff = new ArrayList<>(orchestrationService.handOffQueued());
+        int queued = handedOff.size();
+        if (queued > 0) {
+            checkpointStore.write(handedOff);
+        }
+
+        // 3. Drain what is running. An update still being handled may queue one more job; hand it off as well
+        // Keyed by id: tasks are mutable @Data objects, their hash changes with every status update
+        Map<String, ConversionTask> inFlight = new LinkedHashMap<>();
+        orchestrationService.getInFlightTasks().forEach(task -> inFlight.put(task.getTaskId(), task));
+        log.info("Shutting down: {} job(s) in flight, {} queued job(s) handed off, draining for up to {} s",
+                inFlight.size(), queued, properties.getDrainTimeoutSeconds());
+        try {
+            while (System.nanoTime() < deadline) {
+                List<ConversionTask> late = orchestrationService.handOffQueued();
+                if (!late.isEmpty()) {
+                    handedOff.addAll(late);
+                    queued += late.size();
+                    checkpointStore.write(handedOff);
+                }
+                List<ConversionTask> current = orchestrationService.getInFlightTasks();
+                current.forEach(task -> inFlight.putIfAbsent(task.getTaskId(), task));
+                if (current.isEmpty()) {
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 4. Deadline: kill the child processes of conversions still running and give them to the next instance.
+        // Converted tasks waiting for or in their upload are left to finish
+        List<ConversionTask> interrupted = new ArrayList<>();
+        for (ConversionTask task : orchestrationService.getInFlightTasks()) {
+            if (TaskRegistry.isActive(task) && task.getCancellation() != null && task.getCancellation().cancel()) {
+                interrupted.add(task);
+            }
+        }
+        if (!interrupted.isEmpty()) {
+            handedOff.addAll(interrupted);
+            checkpointStore.write(handedOff);
+            awaitFinished(interrupted, System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getKillGraceSeconds()));
+        }
+
+        interrupted.forEach(task -> inFlight.remove(task.getTaskId()));
+        long drained = inFlight.values().stream().filter(task -> !orchestrationService.isInFlight(task)).count();
+        long unfinished = inFlight.values().stream().filter(orchestrationService::isInFlight).count();
+        log.info("Shutdown drain finished in {} ms: {} job(s) drained, {} handed off ({} queued, {} interrupted), "
+                        + "{} still running{}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), drained, handedOff.size(), queued,
+                interrupted.size(), unfinished,
+                checkpointStore.isEnabled() || handedOff.isEmpty() ? "" : "; no checkpoint path, handed off jobs are lost");
+    }
+
+    private void awaitFinished(List<ConversionTask> tasks, long deadline) {
+        try {
+            while (System.nanoTime() < deadline && tasks.stream().anyMatch(orchestrationService::isInFlight)) {
+                TimeUnit.MILLISECONDS.sleep(POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
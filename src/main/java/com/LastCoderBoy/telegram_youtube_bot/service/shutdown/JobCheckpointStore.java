@@ -0,0 +1,119 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.shutdown;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ShutdownProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioFormat;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioProfile;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionOptions;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conversions handed over from a shutting down instance to the next one, as a small JSON
+ * file on local storage. Written whole each time (temp file, then rename), so a crash while
+ * writing leaves the previous version; read and deleted once on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobCheckpointStore {
+
+    private final ShutdownProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * A conversion as the next instance needs it: who asked, for what, with which options
+     */
+    public record CheckpointedJob(String taskId, Long chatId, String youtubeUrl, AudioProfile profile,
+                                  AudioFormat format, Long sectionStart, Long sectionEnd) {
+
+        static CheckpointedJob of(ConversionTask task) {
+            ConversionOptions options = task.getOptions() != null ? task.getOptions() : ConversionOptions.DEFAULT;
+            AudioSection section = options.section();
+            return new CheckpointedJob(task.getTaskId(), task.getChatId(), task.getYoutubeUrl(), options.profile(),
+                    options.format(), section != null ? section.startSeconds() : null,
+                    section != null ? section.endSeconds() : null);
+        }
+
+        public ConversionOptions options() {
+            AudioSection section = sectionStart != null && sectionEnd != null
+                    ? new AudioSection(sectionStart, sectionEnd)
+                    : null;
+            return new ConversionOptions(profile, section, format);
+        }
+    }
+
+    private record Checkpoint(long writtenAt, List<CheckpointedJob> jobs) {
+    }
+
+    public boolean isEnabled() {
+        return properties.getCheckpointPath() != null && !properties.getCheckpointPath().isBlank();
+    }
+
+    /**
+     * Replace the checkpoint with these tasks
+     */
+    public void write(Collection<ConversionTask> tasks) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path path = Path.of(properties.getCheckpointPath());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Checkpoint checkpoint = new Checkpoint(System.currentTimeMillis(),
+                    tasks.stream().map(CheckpointedJob::of).toList());
+            objectMapper.writeValue(temp.toFile(), checkpoint);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Checkpointed {} job(s) to {}", tasks.size(), path);
+        } catch (IOException e) {
+            log.error("Failed to checkpoint {} job(s) to {}", tasks.size(), path, e);
+        }
+    }
+
+    /**
+     * The jobs left by the previous instance, removing the checkpoint so they run only once
+     * @return the jobs, or an empty list when there are none or the checkpoint is too old
+     */
+    public List<CheckpointedJob> takeAll() {
+        if (!isEnabled()) {
+            return List.of();
+        }
+        Path path = Path.of(properties.getCheckpointPath());
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+        try {
+            Checkpoint checkpoint = objectMapper.readValue(path.toFile(), Checkpoint.class);
+            Files.delete(path);
+            long age = System.currentTimeMillis() - checkpoint.writtenAt();
+            if (age > Duration.ofMinutes(properties.getResumeMaxAgeMinutes()).toMillis()) {
+                log.warn("Dropping {} checkpointed job(s) written {} min ago", checkpoint.jobs().size(),
+                        Duration.ofMillis(age).toMinutes());
+                return List.of();
+            }
+            return checkpoint.jobs() != null ? checkpoint.jobs() : List.of();
+        } catch (IOException | RuntimeException e) {
+            log.error("Unreadable job checkpoint {}, ignoring it", path, e);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Nothing more to do; it is tried again on the next start
+            }
+            return List.of();
+        }
+    }
+}
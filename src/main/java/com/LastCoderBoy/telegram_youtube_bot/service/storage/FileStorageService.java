@@ -1,6 +1,10 @@
 package com.LastCoderBoy.telegram_youtube_bot.service.storage;
 
 import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.StorageTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -11,16 +15,34 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java. time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Scratch files for conversions, in two tiers: small tasks go to a RAM-backed directory
+ * while the total reserved there stays within a budget, everything else goes to disk.
+ * Reservations are made per task from the metadata estimate, corrected to the real download size,
+ * and released when its files go; the per-tier usage gauges read them instead of walking the directories.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
     private final FileStorageProperties properties;
+    private final MeterRegistry registry;
+    // Bytes reserved on the memory tier, by task id
+    private final Map<String, Long> memoryReservations = new ConcurrentHashMap<>();
+    private final AtomicLong memoryReserved = new AtomicLong();
+    // Bytes held on the disk tier, by task id; only tracked for the usage gauge
+    private final Map<String, Long> diskReservations = new ConcurrentHashMap<>();
+    private final AtomicLong diskReserved = new AtomicLong();
+    private volatile boolean memoryTierAvailable;
 
 
     @PostConstruct
@@ -28,21 +50,181 @@ public class FileStorageService {
         try {
             Files.createDirectories(properties.getDownloadDirectory());
             Files.createDirectories(properties.getConvertedDirectory());
+            Files.createDirectories(properties.getThumbnailDirectory());
             log.info("Storage directories initialized:");
             log.info("  - Downloads: {}", properties.getDownloadDirectory());
             log.info("  - Converted: {}", properties.getConvertedDirectory());
+            log.info("  - Thumbnails: {}", properties.getThumbnailDirectory());
         } catch (IOException e) {
             log.error("Failed to create storage directories", e);
             throw new RuntimeException("Could not initialize storage directories", e);
         }
+        initMemoryTier();
+        registerMetrics();
+    }
+
+    private void initMemoryTier() {
+        if (!properties.isMemoryTierEnabled()) {
+            return;
+        }
+        try {
+            Files.createDirectories(properties.getMemoryDownloadDirectory());
+            Files.createDirectories(properties.getMemoryConvertedDirectory());
+            memoryTierAvailable = Files.isWritable(properties.getMemoryDownloadDirectory())
+                    && Files.isWritable(properties.getMemoryConvertedDirectory());
+        } catch (IOException e) {
+            log.debug("Memory tier directories not created", e);
+        }
+        if (memoryTierAvailable) {
+            log.info("  - Memory tier: {} (tasks up to {}, budget {})", properties.getMemoryPath(),
+                    getFileSizeReadable(properties.getMemoryThresholdBytes()),
+                    getFileSizeReadable(properties.getMemoryBudgetBytes()));
+        } else {
+            log.warn("Memory tier {} is not writable, all scratch files go to disk", properties.getMemoryPath());
+        }
+    }
+
+    private void registerMetrics() {
+        Gauge.builder("storage.memory.reserved", memoryReserved, AtomicLong::get)
+                .description("Bytes reserved by tasks on the memory tier")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("storage.memory.budget", this,
+                        service -> service.memoryTierAvailable ? properties.getMemoryBudgetBytes() : 0)
+                .description("Memory tier budget, 0 when the tier is unavailable")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("storage.tier.used", memoryReserved, AtomicLong::get)
+                .description("Bytes held by tasks in each scratch tier")
+                .baseUnit("bytes")
+                .tag("tier", "memory")
+                .register(registry);
+        Gauge.builder("storage.tier.used", diskReserved, AtomicLong::get)
+                .description("Bytes held by tasks in each scratch tier")
+                .baseUnit("bytes")
+                .tag("tier", "disk")
+                .register(registry);
+    }
+
+    /**
+     * Choose the tier for a task and reserve its estimated footprint there.
+     * The memory tier is used when the estimate is known, below the threshold and fits the budget.
+     */
+    public StorageTier reserve(String taskId, long estimatedBytes) {
+        if (!memoryTierAvailable || estimatedBytes <= 0 || estimatedBytes > properties.getMemoryThresholdBytes()) {
+            holdOnDisk(taskId, estimatedBytes);
+            return allocated(StorageTier.DISK);
+        }
+        long reserved;
+        do {
+            reserved = memoryReserved.get();
+            if (reserved + estimatedBytes > properties.getMemoryBudgetBytes()) {
+                holdOnDisk(taskId, estimatedBytes);
+                return allocated(StorageTier.DISK);
+            }
+        } while (!memoryReserved.compareAndSet(reserved, reserved + estimatedBytes));
+
+        memoryReservations.put(taskId, estimatedBytes);
+        return allocated(StorageTier.MEMORY);
+    }
+
+    /**
+     * Once the download's real size is known, grow the task's reservation to cover it and the expected MP3.
+     * If that doesn't fit the budget the download moves to disk and the task continues there.
+     * @return the download's path afterwards
+     */
+    public Path confirmOrSpill(String taskId, Path downloadedFile, long expectedOutputBytes) {
+        long needed = getFileSize(downloadedFile) + expectedOutputBytes;
+        Long current = memoryReservations.get(taskId);
+        if (current == null) {
+            holdOnDisk(taskId, needed);
+            return downloadedFile;
+        }
+        long extra = needed - current;
+        if (extra <= 0 || memoryReserved.addAndGet(extra) <= properties.getMemoryBudgetBytes()) {
+            if (extra > 0) {
+                memoryReservations.put(taskId, needed);
+            }
+            return downloadedFile;
+        }
+        memoryReserved.addAndGet(-extra);
+
+        Path target = properties.getDownloadDirectory().resolve(downloadedFile.getFileName());
+        try {
+            Files.move(downloadedFile, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Leave it where it is; the encode still works from the memory tier
+            log.warn("[{}] Could not spill {} to disk: {}", taskId, downloadedFile.getFileName(), e.getMessage());
+            return downloadedFile;
+        }
+        release(taskId);
+        holdOnDisk(taskId, needed);
+        Counter.builder("storage.tier.spills")
+                .description("Memory tier tasks moved to disk after their download outgrew the estimate")
+                .register(registry)
+                .increment();
+        log.info("[{}] Download larger than estimated, spilled to disk", taskId);
+        return target;
+    }
+
+    /**
+     * Free the task's memory tier reservation, if it has one
+     */
+    public void release(String taskId) {
+        Long reserved = memoryReservations.remove(taskId);
+        if (reserved != null) {
+            memoryReserved.addAndGet(-reserved);
+        }
+        Long onDisk = diskReservations.remove(taskId);
+        if (onDisk != null) {
+            diskReserved.addAndGet(-onDisk);
+        }
+    }
+
+    private void holdOnDisk(String taskId, long bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+        Long previous = diskReservations.put(taskId, bytes);
+        diskReserved.addAndGet(bytes - (previous != null ? previous : 0));
+    }
+
+    /**
+     * The tier the task currently holds: memory while it has a reservation
+     */
+    public StorageTier tierOf(String taskId) {
+        return memoryReservations.containsKey(taskId) ? StorageTier.MEMORY : StorageTier.DISK;
+    }
+
+    private StorageTier allocated(StorageTier tier) {
+        Counter.builder("storage.tier.allocations")
+                .description("Tasks assigned to each scratch tier")
+                .tag("tier", tier.name().toLowerCase())
+                .register(registry)
+                .increment();
+        return tier;
     }
 
     public Path getDownloadPath(String fileName) {
-        return properties.getDownloadDirectory().resolve(sanitizeFileName(fileName));
+        return getDownloadPath(fileName, StorageTier.DISK);
+    }
+
+    public Path getDownloadPath(String fileName, StorageTier tier) {
+        Path directory = tier == StorageTier.MEMORY && memoryTierAvailable
+                ? properties.getMemoryDownloadDirectory()
+                : properties.getDownloadDirectory();
+        return directory.resolve(sanitizeFileName(fileName));
     }
 
     public Path getConvertedPath(String fileName) {
-        return properties.getConvertedDirectory().resolve(sanitizeFileName(fileName));
+        return getConvertedPath(fileName, StorageTier.DISK);
+    }
+
+    public Path getConvertedPath(String fileName, StorageTier tier) {
+        Path directory = tier == StorageTier.MEMORY && memoryTierAvailable
+                ? properties.getMemoryConvertedDirectory()
+                : properties.getConvertedDirectory();
+        return directory.resolve(sanitizeFileName(fileName));
     }
 
     public String sanitizeFileName(String fileName) {
@@ -66,6 +248,32 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Delete every file in the download directories whose name starts with the prefix,
+     * including yt-dlp's .part and fragment files
+     * @return number of files deleted
+     */
+    public int deleteDownloadsWithPrefix(String prefix) {
+        int deleted = deleteWithPrefix(properties.getDownloadDirectory(), prefix);
+        if (memoryTierAvailable) {
+            deleted += deleteWithPrefix(properties.getMemoryDownloadDirectory(), prefix);
+        }
+        return deleted;
+    }
+
+    private int deleteWithPrefix(Path directory, String prefix) {
+        File[] files = directory.toFile().listFiles((dir, name) -> name.startsWith(prefix));
+        if (files == null) return 0;
+
+        int deleted = 0;
+        for (File file : files) {
+            if (deleteFile(file.toPath())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
     public long getFileSize(Path filePath) {
         try {
             return Files.size(filePath);
@@ -85,6 +293,10 @@ public class FileStorageService {
     public void cleanupOldFiles() {
         cleanupDirectory(properties.getDownloadDirectory());
         cleanupDirectory(properties.getConvertedDirectory());
+        if (memoryTierAvailable) {
+            cleanupDirectory(properties.getMemoryDownloadDirectory());
+            cleanupDirectory(properties.getMemoryConvertedDirectory());
+        }
     }
 
     private void cleanupDirectory(Path directory) {
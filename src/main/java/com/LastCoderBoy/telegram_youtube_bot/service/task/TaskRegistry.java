@@ -0,0 +1,169 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.task;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.TaskRegistryProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionStatus;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every task from creation until it expires, indexed by task id and by chat id.
+ * Reads never block; writes only contend on the same chat. Both maps are sized
+ * up front so a burst of submissions doesn't trigger rehashing.
+ * Finished tasks stay for the retention period so /status can report them.
+ * <p>
+ * A task counts as unfinished from {@link #register} until {@link #finish}, whatever its status:
+ * a converted task that is waiting for its upload is still unfinished.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+public class TaskRegistry {
+
+    private final TaskRegistryProperties properties;
+    private final Map<String, ConversionTask> byId;
+    private final Map<Long, Set<String>> byChat;
+    private final Set<String> unfinished = ConcurrentHashMap.newKeySet();
+
+    public TaskRegistry(TaskRegistryProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.byId = new ConcurrentHashMap<>(properties.getExpectedLiveTasks());
+        this.byChat = new ConcurrentHashMap<>(properties.getExpectedLiveTasks());
+
+        Gauge.builder("tasks.registered", byId, Map::size)
+                .description("Tasks held by the registry, live and recently finished")
+                .register(meterRegistry);
+    }
+
+    public void register(ConversionTask task) {
+        byId.put(task.getTaskId(), task);
+        unfinished.add(task.getTaskId());
+        byChat.compute(task.getChatId(), (chatId, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet(4);
+            }
+            ids.add(task.getTaskId());
+            return ids;
+        });
+    }
+
+    /**
+     * Stamp the finish time; the task is evicted once the retention period has passed
+     */
+    public void finish(ConversionTask task) {
+        task.setCompletedAt(LocalDateTime.now());
+        unfinished.remove(task.getTaskId());
+    }
+
+    public boolean isUnfinished(ConversionTask task) {
+        return unfinished.contains(task.getTaskId());
+    }
+
+    /**
+     * Tasks registered but not finished yet: queued, converting, or converted and not yet delivered
+     */
+    public List<ConversionTask> getUnfinished() {
+        return unfinished.stream()
+                .map(byId::get)
+                .filter(task -> task != null)
+                .toList();
+    }
+
+    public ConversionTask get(String taskId) {
+        return byId.get(taskId);
+    }
+
+    /**
+     * Tasks of the chat, oldest first
+     */
+    public List<ConversionTask> findByChat(Long chatId) {
+        Set<String> ids = byChat.get(chatId);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(task -> task != null)
+                .sorted((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()))
+                .toList();
+    }
+
+    /**
+     * Tasks of the chat that are still queued, downloading or converting
+     */
+    public List<ConversionTask> findActiveByChat(Long chatId) {
+        return findByChat(chatId).stream().filter(TaskRegistry::isActive).toList();
+    }
+
+    public Collection<ConversionTask> getAll() {
+        return List.copyOf(byId.values());
+    }
+
+    public Map<ConversionStatus, Integer> countByStatus() {
+        Map<ConversionStatus, Integer> counts = new EnumMap<>(ConversionStatus.class);
+        for (ConversionTask task : byId.values()) {
+            counts.merge(task.getStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public static boolean isActive(ConversionTask task) {
+        ConversionStatus status = task.getStatus();
+        return status == ConversionStatus.PENDING
+                || status == ConversionStatus.DOWNLOADING
+                || status == ConversionStatus.CONVERTING;
+    }
+
+    /**
+     * Drop finished tasks past the retention period, and anything older than the
+     * max age in case a task never reached a final state
+     */
+    @Scheduled(fixedDelayString = "${tasks.sweep-interval-seconds:60}000", initialDelay = 60000)
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime finishedBefore = now.minusMinutes(properties.getRetentionMinutes());
+        LocalDateTime createdBefore = now.minusMinutes(properties.getMaxAgeMinutes());
+
+        int evicted = 0;
+        for (ConversionTask task : byId.values()) {
+            LocalDateTime completedAt = task.getCompletedAt();
+            boolean expired = completedAt != null
+                    ? completedAt.isBefore(finishedBefore)
+                    : task.getCreatedAt().isBefore(createdBefore);
+            if (expired && remove(task)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired tasks, {} remaining", evicted, byId.size());
+        }
+    }
+
+    private boolean remove(ConversionTask task) {
+        if (!byId.remove(task.getTaskId(), task)) {
+            return false;
+        }
+        unfinished.remove(task.getTaskId());
+        byChat.computeIfPresent(task.getChatId(), (chatId, ids) -> {
+            ids.remove(task.getTaskId());
+            return ids.isEmpty() ? null : ids;
+        });
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.task;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.PhaseSpan;
+import com.LastCoderBoy.telegram_youtube_bot.service.ConversionOrchestrationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/tasks: registry contents for operators. DELETE /actuator/tasks/{taskId} cancels a task
+ * once {@code management.endpoint.tasks.access} is set to unrestricted; read-only by default.
+ */
+@Component
+@Endpoint(id = "tasks", defaultAccess = Access.READ_ONLY)
+@RequiredArgsConstructor
+public class TasksEndpoint {
+
+    private final TaskRegistry taskRegistry;
+    private final ConversionOrchestrationService orchestrationService;
+
+    @ReadOperation
+    public Map<String, Object> tasks() {
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        tasks.put("registered", taskRegistry.size());
+        tasks.put("byStatus", taskRegistry.countByStatus());
+        tasks.put("active", taskRegistry.getAll().stream()
+                .filter(TaskRegistry::isActive)
+                .sorted(Comparator.comparing(ConversionTask::getCreatedAt))
+                .map(this::toView)
+                .toList());
+        return tasks;
+    }
+
+    @ReadOperation
+    public TaskView task(@Selector String taskId) {
+        ConversionTask task = taskRegistry.get(taskId);
+        return task != null ? toView(task) : null;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> cancel(@Selector String taskId) {
+        return Map.of("taskId", taskId, "cancelled", orchestrationService.cancelTask(taskId));
+    }
+
+    private TaskView toView(ConversionTask task) {
+        PhaseSpan phase = task.getTimeline() != null ? task.getTimeline().currentPhase() : null;
+        return new TaskView(
+                task.getTaskId(),
+                task.getChatId(),
+                task.getYoutubeUrl(),
+                task.getMetadata() != null ? task.getMetadata().getTitle() : null,
+                task.getStatus() != null ? task.getStatus().name() : null,
+                phase != null ? phase.getPhase().name() : null,
+                task.getStorageTier() != null ? task.getStorageTier().name() : null,
+                task.getErrorMessage(),
+                task.getCreatedAt(),
+                task.getCompletedAt()
+        );
+    }
+
+    public record TaskView(String taskId, Long chatId, String youtubeUrl, String title, String status,
+                           String phase, String storageTier, String error, LocalDateTime createdAt, LocalDateTime completedAt) {
+    }
+}
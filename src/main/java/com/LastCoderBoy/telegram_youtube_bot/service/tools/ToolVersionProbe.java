@@ -0,0 +1,161 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.tools;
+
+import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs {@code yt-dlp --version} and {@code ffmpeg -version} in the background once the
+ * application is ready, so a missing or broken tool shows up in the log at startup
+ * without the two process launches delaying the first update.
+ */
+@Slf4j
+@Component
+public class ToolVersionProbe {
+
+    public static final String YT_DLP = "yt-dlp";
+    public static final String FFMPEG = "ffmpeg";
+
+    private static final Executor PROBE_EXECUTOR = runnable -> Thread.ofVirtual().name("tool-probe").start(runnable);
+
+    private final CommandExecutor commandExecutor;
+    private final Map<String, ToolVersion> versions = new ConcurrentHashMap<>();
+    private final AtomicReference<CompletableFuture<Map<String, ToolVersion>>> inFlight = new AtomicReference<>();
+    private volatile Instant probedAt;
+
+    @Value("${youtube.download.yt-dlp-path}")
+    private String ytDlpPath;
+
+    @Value("${ffmpeg.path}")
+    private String ffmpegPath;
+
+    public ToolVersionProbe(CommandExecutor commandExecutor) {
+        this.commandExecutor = commandExecutor;
+    }
+
+    /**
+     * Result of one probe; version is null when the tool could not be run
+     */
+    public record ToolVersion(String tool, String path, String version, String error) {
+        public boolean isAvailable() {
+            return version != null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void probeOnStartup() {
+        probe().thenAccept(results -> results.values().forEach(result -> {
+            if (result.isAvailable()) {
+                log.info("Using {} {} ({})", result.tool(), result.version(), result.path());
+            } else {
+                log.warn("{} is not usable at '{}': {}. Conversions will fail until it is installed",
+                        result.tool(), result.path(), result.error());
+            }
+        }));
+    }
+
+    /**
+     * Probe both tools in parallel. Calls made while a probe is running share it.
+     * @return a future with the results by tool name
+     */
+    public CompletableFuture<Map<String, ToolVersion>> probe() {
+        CompletableFuture<Map<String, ToolVersion>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, ToolVersion>> running = inFlight.compareAndExchange(null, created);
+        if (running != null) {
+            return running;
+        }
+
+        CompletableFuture<ToolVersion> ytDlp = probeAsync(YT_DLP, ytDlpPath, "--version");
+        CompletableFuture<ToolVersion> ffmpeg = probeAsync(FFMPEG, ffmpegPath, "-version");
+        // Whatever happens, the next probe() must start afresh and callers waiting on this one must get an answer
+        ytDlp.thenCombine(ffmpeg, Map::entry).whenComplete((both, failure) -> {
+            if (both != null) {
+                versions.put(YT_DLP, both.getKey());
+                versions.put(FFMPEG, both.getValue());
+                probedAt = Instant.now();
+            } else {
+                log.warn("Tool version check failed", failure);
+            }
+            inFlight.set(null);
+            created.complete(getVersions());
+        });
+        return created;
+    }
+
+    /**
+     * Start a background probe if the last one finished longer ago than maxAge
+     */
+    public void refreshIfOlderThan(Duration maxAge) {
+        Instant last = probedAt;
+        if (last != null && last.plus(maxAge).isAfter(Instant.now())) {
+            return;
+        }
+        probe();
+    }
+
+    /**
+     * @return when the latest results were taken, null before the first probe finishes
+     */
+    public Instant getProbedAt() {
+        return probedAt;
+    }
+
+    /**
+     * @return the latest probe results, empty until the first probe finishes
+     */
+    public Map<String, ToolVersion> getVersions() {
+        return Map.copyOf(versions);
+    }
+
+    private CompletableFuture<ToolVersion> probeAsync(String tool, String path, String versionFlag) {
+        try {
+            return CompletableFuture.supplyAsync(() -> probe(tool, path, versionFlag), PROBE_EXECUTOR);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(new ToolVersion(tool, path, null, "could not start: " + e));
+        }
+    }
+
+    private ToolVersion probe(String tool, String path, String versionFlag) {
+        try {
+            CommandExecutor.ProcessResult result = commandExecutor.execute(path, versionFlag);
+            if (result.exitCode() != 0) {
+                return new ToolVersion(tool, path, null, "exit code " + result.exitCode());
+            }
+            return new ToolVersion(tool, path, versionFrom(result.output()), null);
+        } catch (IOException e) {
+            return new ToolVersion(tool, path, null, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ToolVersion(tool, path, null, "interrupted");
+        } catch (RuntimeException e) {
+            // e.g. a blank configured path
+            return new ToolVersion(tool, path, null, e.toString());
+        }
+    }
+
+    /**
+     * "2025.01.01" for yt-dlp, "7.0" from "ffmpeg version 7.0 Copyright ..." for ffmpeg
+     */
+    static String versionFrom(String output) {
+        String firstLine = output.strip().lines().findFirst().orElse("").strip();
+        int marker = firstLine.indexOf(" version ");
+        if (marker < 0) {
+            return firstLine.isEmpty() ? "unknown" : firstLine;
+        }
+        String rest = firstLine.substring(marker + " version ".length()).strip();
+        int end = rest.indexOf(' ');
+        return end < 0 ? rest : rest.substring(0, end);
+    }
+}
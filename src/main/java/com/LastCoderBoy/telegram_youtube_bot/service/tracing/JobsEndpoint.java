@@ -0,0 +1,90 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.tracing;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.PhaseSpan;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskTimeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * /actuator/jobs: in-flight and recently finished tasks with their phase timelines
+ */
+@Component
+@Endpoint(id = "jobs")
+@RequiredArgsConstructor
+public class JobsEndpoint {
+
+    private final TaskTracer taskTracer;
+
+    @ReadOperation
+    public Map<String, Object> jobs() {
+        Map<String, Object> jobs = new LinkedHashMap<>();
+        jobs.put("inFlight", taskTracer.getInFlight().stream().map(this::toView).toList());
+        jobs.put("recent", taskTracer.getRecent().stream().map(this::toView).toList());
+        return jobs;
+    }
+
+    @ReadOperation
+    public JobView job(@Selector String taskId) {
+        return Stream.concat(taskTracer.getInFlight().stream(), taskTracer.getRecent().stream())
+                .filter(task -> task.getTaskId().equals(taskId))
+                .findFirst()
+                .map(this::toView)
+                .orElse(null);
+    }
+
+    private JobView toView(ConversionTask task) {
+        TaskTimeline timeline = task.getTimeline();
+        List<PhaseSpan> spans = timeline.getPhases();
+        long endNanos = spans.isEmpty() || timeline.currentPhase() != null
+                ? System.nanoTime()
+                : spans.get(spans.size() - 1).getEndNanos();
+        List<PhaseView> phases = spans.stream().map(phase -> toView(timeline, phase)).toList();
+
+        return new JobView(
+                task.getTaskId(),
+                task.getChatId(),
+                task.getYoutubeUrl(),
+                task.getMetadata() != null ? task.getMetadata().getTitle() : null,
+                task.getStatus() != null ? task.getStatus().name() : null,
+                task.getErrorMessage(),
+                toMillis(endNanos - timeline.getStartNanos()),
+                phases,
+                timeline.getProcessIds(),
+                timeline.getByteCounts()
+        );
+    }
+
+    private PhaseView toView(TaskTimeline timeline, PhaseSpan phase) {
+        return new PhaseView(
+                phase.getPhase().name(),
+                timeline.toEpochNanos(phase.getStartNanos()),
+                phase.isOpen() ? null : timeline.toEpochNanos(phase.getEndNanos()),
+                toMillis(phase.getDurationNanos()),
+                phase.isFailed(),
+                List.copyOf(phase.getProcessIds())
+        );
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public record JobView(String taskId, Long chatId, String youtubeUrl, String title, String status,
+                          String error, double elapsedMillis, List<PhaseView> phases,
+                          List<Long> processIds, Map<String, Long> bytes) {
+    }
+
+    public record PhaseView(String phase, long startEpochNanos, Long endEpochNanos, double durationMillis,
+                            boolean failed, List<Long> processIds) {
+    }
+}
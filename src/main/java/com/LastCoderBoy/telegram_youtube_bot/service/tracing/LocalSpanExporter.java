@@ -0,0 +1,150 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.tracing;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.TracingProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionStatus;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.PhaseSpan;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskTimeline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes finished tasks as OpenTelemetry-style spans, one JSON object per line:
+ * a root "conversion" span per task and a child span per phase.
+ * The file is rotated to {@code <name>.1} once it exceeds the configured size.
+ */
+@Slf4j
+@Component
+public class LocalSpanExporter {
+
+    private final TracingProperties properties;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BufferedWriter writer;
+
+    public LocalSpanExporter(TracingProperties properties) {
+        this.properties = properties;
+    }
+
+    public synchronized void export(ConversionTask task) {
+        if (!properties.isExportEnabled() || task.getTimeline() == null) {
+            return;
+        }
+
+        TaskTimeline timeline = task.getTimeline();
+        List<PhaseSpan> phases = timeline.getPhases();
+        if (phases.isEmpty()) {
+            return;
+        }
+
+        String traceId = task.getTaskId().replace("-", "");
+        String rootSpanId = newSpanId();
+        boolean failed = task.getStatus() == ConversionStatus.FAILED;
+
+        try {
+            Path exportPath = Path.of(properties.getExportPath());
+            rotateIfNeeded(exportPath);
+            BufferedWriter out = writer(exportPath);
+
+            ObjectNode root = span(traceId, rootSpanId, null, "conversion",
+                    timeline.toEpochNanos(phases.get(0).getStartNanos()),
+                    timeline.toEpochNanos(phases.get(phases.size() - 1).getEndNanos()),
+                    failed, task.getErrorMessage());
+            ObjectNode attributes = root.putObject("attributes");
+            attributes.put("task.id", task.getTaskId());
+            attributes.put("chat.id", task.getChatId());
+            attributes.put("youtube.url", task.getYoutubeUrl());
+            if (task.getMetadata() != null) {
+                attributes.put("video.id", task.getMetadata().getVideoId());
+            }
+            attributes.putPOJO("process.pids", timeline.getProcessIds());
+            timeline.getByteCounts().forEach((name, bytes) -> attributes.put("bytes." + name, bytes));
+            write(out, root);
+
+            for (PhaseSpan phase : phases) {
+                ObjectNode child = span(traceId, newSpanId(), rootSpanId,
+                        "conversion." + phase.getPhase().name().toLowerCase(),
+                        timeline.toEpochNanos(phase.getStartNanos()),
+                        timeline.toEpochNanos(phase.getEndNanos()),
+                        phase.isFailed(), null);
+                if (!phase.getProcessIds().isEmpty()) {
+                    child.putObject("attributes").putPOJO("process.pids", phase.getProcessIds());
+                }
+                write(out, child);
+            }
+            out.flush();
+
+        } catch (IOException e) {
+            log.warn("[{}] Failed to export trace: {}", task.getTaskId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("Failed to close span export file", e);
+            }
+            writer = null;
+        }
+    }
+
+    private ObjectNode span(String traceId, String spanId, String parentSpanId, String name,
+                            long startEpochNanos, long endEpochNanos, boolean failed, String message) {
+        ObjectNode span = objectMapper.createObjectNode();
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        if (parentSpanId != null) {
+            span.put("parentSpanId", parentSpanId);
+        }
+        span.put("name", name);
+        span.put("kind", "INTERNAL");
+        span.put("startTimeUnixNano", startEpochNanos);
+        span.put("endTimeUnixNano", endEpochNanos);
+        ObjectNode status = span.putObject("status");
+        status.put("code", failed ? "ERROR" : "OK");
+        if (message != null) {
+            status.put("message", message);
+        }
+        return span;
+    }
+
+    private void write(BufferedWriter out, ObjectNode span) throws IOException {
+        out.write(objectMapper.writeValueAsString(span));
+        out.newLine();
+    }
+
+    private BufferedWriter writer(Path exportPath) throws IOException {
+        if (writer == null) {
+            Files.createDirectories(exportPath.getParent());
+            writer = Files.newBufferedWriter(exportPath, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private void rotateIfNeeded(Path exportPath) throws IOException {
+        if (Files.exists(exportPath) && Files.size(exportPath) > properties.getExportMaxBytes()) {
+            close();
+            Files.move(exportPath, Path.of(exportPath + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String newSpanId() {
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+}
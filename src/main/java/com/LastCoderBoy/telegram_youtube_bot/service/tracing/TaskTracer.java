@@ -0,0 +1,89 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.tracing;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.TracingProperties;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionStatus;
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskPhase;
+import com.LastCoderBoy.telegram_youtube_bot.model.TaskTimeline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the phase timeline of every task from submission to cleanup.
+ * In-flight tasks are kept until finished, then the most recent ones
+ * are retained in a fixed-size ring buffer for the jobs endpoint.
+ */
+@Slf4j
+@Component
+public class TaskTracer {
+
+    private final LocalSpanExporter exporter;
+    private final Map<String, ConversionTask> inFlight = new ConcurrentHashMap<>();
+    private final ConversionTask[] recent;
+    private int recentNext;
+    private int recentSize;
+
+    public TaskTracer(LocalSpanExporter exporter, TracingProperties properties) {
+        this.exporter = exporter;
+        this.recent = new ConversionTask[Math.max(1, properties.getRecentCapacity())];
+    }
+
+    /**
+     * Start tracing a newly submitted task, in the QUEUED phase
+     */
+    public void start(ConversionTask task) {
+        TaskTimeline timeline = new TaskTimeline();
+        timeline.begin(TaskPhase.QUEUED);
+        task.setTimeline(timeline);
+        inFlight.put(task.getTaskId(), task);
+    }
+
+    public void enter(ConversionTask task, TaskPhase phase) {
+        if (task.getTimeline() != null) {
+            task.getTimeline().begin(phase);
+        }
+    }
+
+    public void recordBytes(ConversionTask task, String name, long bytes) {
+        if (task.getTimeline() != null) {
+            task.getTimeline().recordBytes(name, bytes);
+        }
+    }
+
+    /**
+     * Close the timeline, move the task to the recent buffer and export its spans
+     */
+    public void finish(ConversionTask task) {
+        if (task.getTimeline() == null || inFlight.remove(task.getTaskId()) == null) {
+            return;
+        }
+        task.getTimeline().end(task.getStatus() == ConversionStatus.FAILED);
+
+        synchronized (this) {
+            recent[recentNext] = task;
+            recentNext = (recentNext + 1) % recent.length;
+            recentSize = Math.min(recentSize + 1, recent.length);
+        }
+        exporter.export(task);
+    }
+
+    public List<ConversionTask> getInFlight() {
+        return List.copyOf(inFlight.values());
+    }
+
+    /**
+     * Recently finished tasks, newest first
+     */
+    public synchronized List<ConversionTask> getRecent() {
+        List<ConversionTask> tasks = new ArrayList<>(recentSize);
+        for (int i = 1; i <= recentSize; i++) {
+            tasks.add(recent[Math.floorMod(recentNext - i, recent.length)]);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,54 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.youtube;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.ResilienceProperties;
+import com.LastCoderBoy.telegram_youtube_bot.exception.DownloadException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
+import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.CircuitBreakerRegistry;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.Retrier;
+import com.LastCoderBoy.telegram_youtube_bot.util.CircuitBreaker;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+
+/**
+ * yt-dlp with retries for throttling and network errors and a circuit breaker that fails fast
+ * while YouTube keeps refusing us. Downloads are retried into the same path, so yt-dlp
+ * resumes the partial file.
+ */
+@Primary
+@Service
+public class ResilientYouTubeDownloadService implements YouTubeDownloadService {
+
+    private final YtDlpServiceImpl delegate;
+    private final Retrier retrier;
+    private final ResilienceProperties properties;
+    private final CircuitBreaker breaker;
+
+    public ResilientYouTubeDownloadService(YtDlpServiceImpl delegate, Retrier retrier,
+                                           CircuitBreakerRegistry breakers, ResilienceProperties properties) {
+        this.delegate = delegate;
+        this.retrier = retrier;
+        this.properties = properties;
+        this.breaker = breakers.get(CircuitBreakerRegistry.YT_DLP);
+    }
+
+    @Override
+    public Path downloadAudio(String url, Path outputPath, AudioSection section) {
+        return retrier.call("download", breaker, properties.getDownloadMaxAttempts(),
+                () -> delegate.downloadAudio(url, outputPath, section),
+                ResilientYouTubeDownloadService::isRetryable, DownloadException::new);
+    }
+
+    @Override
+    public VideoMetadata getVideoMetadata(String url) {
+        return retrier.call("metadata", breaker, properties.getMetadataMaxAttempts(),
+                () -> delegate.getVideoMetadata(url),
+                ResilientYouTubeDownloadService::isRetryable, DownloadException::new);
+    }
+
+    private static boolean isRetryable(RuntimeException e) {
+        return e instanceof DownloadException download && download.isRetryable();
+    }
+}
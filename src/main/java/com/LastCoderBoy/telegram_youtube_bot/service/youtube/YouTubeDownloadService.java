@@ -1,6 +1,7 @@
 package com.LastCoderBoy.telegram_youtube_bot.service.youtube;
 
 
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
 import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
 
 import java.nio.file.Path;
@@ -8,12 +9,13 @@ import java.nio.file.Path;
 public interface YouTubeDownloadService {
 
     /**
-     * Download audio from YouTube video
+     * Download audio from YouTube video, optionally only a section of it
      * @param url YouTube video URL
      * @param outputPath Where to save the downloaded file
+     * @param section Time range to download, or null for the whole video
      * @return Path to the downloaded file
      */
-    Path downloadAudio(String url, Path outputPath);
+    Path downloadAudio(String url, Path outputPath, AudioSection section);
 
     /**
      * Get video metadata without downloading
@@ -0,0 +1,162 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.youtube;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streams {@code yt-dlp --dump-json} output and pulls out only the fields we use.
+ * Everything else, including the formats' URLs, headers and fragments, is skipped
+ * token by token without building a tree. Each call has its own parser and state,
+ * so one instance can be shared by any number of threads.
+ */
+public class YtDlpMetadataParser {
+
+    private final JsonFactory jsonFactory = JsonFactory.builder().build();
+
+    public VideoMetadata parse(InputStream json, String url) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object from yt-dlp");
+            }
+
+            VideoMetadata.VideoMetadataBuilder metadata = VideoMetadata.builder()
+                    .title("Unknown")
+                    .uploader("Unknown")
+                    .duration(0L)
+                    .url(url);
+            String channel = null;
+            boolean hasUploader = false;
+            Long filesizeApprox = null;
+            AudioFormat bestAudio = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id" -> metadata.videoId(text(parser, value));
+                    case "title" -> {
+                        String title = text(parser, value);
+                        if (title != null) {
+                            metadata.title(title);
+                        }
+                    }
+                    case "duration" -> {
+                        if (value.isNumeric()) {
+                            metadata.duration(parser.getValueAsLong());
+                        }
+                    }
+                    case "uploader" -> {
+                        String uploader = text(parser, value);
+                        if (uploader != null) {
+                            metadata.uploader(uploader);
+                            hasUploader = true;
+                        }
+                    }
+                    case "channel" -> channel = text(parser, value);
+                    case "thumbnail" -> metadata.thumbnail(text(parser, value));
+                    case "filesize" -> metadata.filesize(number(parser, value));
+                    case "filesize_approx" -> filesizeApprox = number(parser, value);
+                    case "formats" -> bestAudio = value == JsonToken.START_ARRAY ? bestAudio(parser) : null;
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (!hasUploader && channel != null) {
+                metadata.uploader(channel);
+            }
+            VideoMetadata result = metadata.build();
+            if (result.getFilesize() == null) {
+                result.setFilesize(filesizeApprox);
+            }
+            if (bestAudio != null) {
+                result.setAudioFormatId(bestAudio.formatId);
+                result.setAudioExt(bestAudio.ext);
+                result.setAudioBitrate(bestAudio.bitrate);
+                result.setAudioFilesize(bestAudio.filesize);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Walk the formats array and keep the audio-only format yt-dlp's
+     * {@code bestaudio[ext=m4a]/bestaudio} selector would pick
+     */
+    private AudioFormat bestAudio(JsonParser parser) throws IOException {
+        AudioFormat best = null;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            AudioFormat format = new AudioFormat();
+            String vcodec = null;
+            String acodec = null;
+            Long filesizeApprox = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "format_id" -> format.formatId = text(parser, value);
+                    case "ext" -> format.ext = text(parser, value);
+                    case "vcodec" -> vcodec = text(parser, value);
+                    case "acodec" -> acodec = text(parser, value);
+                    case "abr" -> format.bitrate = value.isNumeric() ? parser.getValueAsDouble() : null;
+                    case "filesize" -> format.filesize = number(parser, value);
+                    case "filesize_approx" -> filesizeApprox = number(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (!"none".equals(vcodec) || acodec == null || "none".equals(acodec)) {
+                continue;
+            }
+            if (format.filesize == null) {
+                format.filesize = filesizeApprox;
+            }
+            if (best == null || format.isBetterThan(best)) {
+                best = format;
+            }
+        }
+        return best;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        parser.skipChildren();
+        return value.isScalarValue() ? parser.getText() : null;
+    }
+
+    private static Long number(JsonParser parser, JsonToken value) throws IOException {
+        if (!value.isNumeric()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsLong();
+    }
+
+    private static final class AudioFormat {
+        String formatId;
+        String ext;
+        Double bitrate;
+        Long filesize;
+
+        boolean isBetterThan(AudioFormat other) {
+            boolean m4a = "m4a".equals(ext);
+            boolean otherM4a = "m4a".equals(other.ext);
+            if (m4a != otherM4a) {
+                return m4a;
+            }
+            return bitrateOrZero() > other.bitrateOrZero();
+        }
+
+        private double bitrateOrZero() {
+            return bitrate != null ? bitrate : 0;
+        }
+    }
+}
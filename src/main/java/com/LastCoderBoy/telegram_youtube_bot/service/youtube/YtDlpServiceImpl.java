@@ -1,11 +1,11 @@
 package com.LastCoderBoy.telegram_youtube_bot.service.youtube;
 
 import com.LastCoderBoy.telegram_youtube_bot.exception.DownloadException;
+import com.LastCoderBoy.telegram_youtube_bot.model.AudioSection;
 import com.LastCoderBoy.telegram_youtube_bot.model.VideoMetadata;
+import com.LastCoderBoy.telegram_youtube_bot.service.resilience.FailureClassifier;
 import com.LastCoderBoy.telegram_youtube_bot.service.storage.FileStorageService;
 import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -24,17 +24,17 @@ public class YtDlpServiceImpl implements YouTubeDownloadService {
     private String ytDlpPath;
 
     private final CommandExecutor commandExecutor;
-    private final ObjectMapper objectMapper;
+    private final YtDlpMetadataParser metadataParser;
     private final FileStorageService fileStorageService;
 
     public YtDlpServiceImpl(CommandExecutor commandExecutor, FileStorageService fileStorageService) {
         this.commandExecutor = commandExecutor;
         this.fileStorageService = fileStorageService;
-        this.objectMapper = new ObjectMapper();
+        this.metadataParser = new YtDlpMetadataParser();
     }
 
     @Override
-    public Path downloadAudio(String url, Path outputPath) {
+    public Path downloadAudio(String url, Path outputPath, AudioSection section) {
         log.info("Starting audio download from: {}", url);
 
         try {
@@ -49,6 +49,12 @@ public class YtDlpServiceImpl implements YouTubeDownloadService {
             command.add("-o");
             command.add(outputPath.toString());
             command.add("--no-playlist");  // Don't download playlists
+            command.add("--continue");  // A retry resumes the .part file instead of starting over
+            if (section != null) {
+                // Only the requested range is fetched, not the whole stream
+                command.add("--download-sections");
+                command.add(section.toDownloadSections());
+            }
             command.add("--quiet");  // Suppress warnings
             command.add("--no-warnings");
             command.add(url);
@@ -61,7 +67,8 @@ public class YtDlpServiceImpl implements YouTubeDownloadService {
 
             if (!result.isSuccess()) {
                 throw new DownloadException("yt-dlp failed with exit code: " + result.exitCode() +
-                        "\nOutput: " + result.output());
+                        "\nOutput: " + result.output(),
+                        FailureClassifier.isRetryableYtDlp(result.exitCode(), result.output()));
             }
 
             // yt-dlp might add extension, find the actual file
@@ -96,31 +103,19 @@ public class YtDlpServiceImpl implements YouTubeDownloadService {
             command.add("--quiet");  // Quiet mode
             command.add(url);
 
-            CommandExecutor.ProcessResult result = commandExecutor.execute(
+            // Parse straight off stdout; the dump is mostly a formats array we don't need
+            CommandExecutor.StreamResult<VideoMetadata> result = commandExecutor.executeStreaming(
+                    stdout -> metadataParser.parse(stdout, url),
                     command.toArray(new String[0])
             );
 
             if (!result.isSuccess()) {
-                throw new DownloadException("Failed to fetch metadata. Exit code: " + result.exitCode());
-            }
-
-            // Extract JSON from output (filter out any non-JSON lines)
-            String jsonOutput = extractJsonFromOutput(result.output());
-
-            if (jsonOutput == null || jsonOutput.trim().isEmpty()) {
-                throw new DownloadException("No JSON output received from yt-dlp");
+                throw new DownloadException("Failed to fetch metadata. Exit code: " + result.exitCode() +
+                        "\nOutput: " + result.errorOutput(),
+                        FailureClassifier.isRetryableYtDlp(result.exitCode(), result.errorOutput()));
             }
 
-            JsonNode jsonNode = objectMapper.readTree(result.output());
-
-            VideoMetadata metadata = VideoMetadata.builder()
-                    .videoId(jsonNode.has("id") ? jsonNode.get("id").asText() : null)
-                    .title(jsonNode.has("title") ? jsonNode.get("title").asText() : "Unknown")
-                    .duration(jsonNode.has("duration") ? jsonNode.get("duration").asLong() : 0L)
-                    .uploader(jsonNode.has("uploader") ? jsonNode.get("uploader").asText() : "Unknown")
-                    .thumbnail(jsonNode.has("thumbnail") ? jsonNode.get("thumbnail").asText() : null)
-                    .url(url)
-                    .build();
+            VideoMetadata metadata = result.value();
 
             log.info("Metadata fetched: {}", metadata. getTitle());
             return metadata;
@@ -132,52 +127,6 @@ public class YtDlpServiceImpl implements YouTubeDownloadService {
     }
 
 
-    /**
-     * Extract valid JSON from output (remove warnings and other non-JSON lines)
-     */
-    private String extractJsonFromOutput(String output) {
-        if (output == null || output.trim().isEmpty()) {
-            return null;
-        }
-
-        // Split by lines and find the first line that starts with '{'
-        String[] lines = output.split("\n");
-        StringBuilder jsonBuilder = new StringBuilder();
-        boolean jsonStarted = false;
-        int braceCount = 0;
-
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-
-            // Skip empty lines
-            if (trimmedLine.isEmpty()) {
-                continue;
-            }
-
-            // Start capturing when we see opening brace
-            if (!jsonStarted && trimmedLine.startsWith("{")) {
-                jsonStarted = true;
-            }
-
-            if (jsonStarted) {
-                jsonBuilder.append(line).append("\n");
-
-                // Count braces to know when JSON ends
-                for (char c : line.toCharArray()) {
-                    if (c == '{') braceCount++;
-                    if (c == '}') braceCount--;
-                }
-
-                // If braces are balanced, JSON is complete
-                if (braceCount == 0) {
-                    break;
-                }
-            }
-        }
-
-        return jsonBuilder.toString().trim();
-    }
-
     private Path findDownloadedFile(Path basePath) {
         try {
             // Check if exact file exists
@@ -0,0 +1,26 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter, so callers that failed together don't retry together
+ */
+public final class Backoff {
+
+    private Backoff() {
+    }
+
+    /**
+     * Delay before the given retry: base doubled per attempt up to the cap, then a random
+     * point in its upper half, so a retry is never immediate
+     * @param attempt 1 for the first retry
+     */
+    public static long jittered(long base, int attempt, long max) {
+        long ceiling = base << Math.min(Math.max(attempt - 1, 0), 30);
+        if (ceiling <= 0 || ceiling > max) {
+            ceiling = max;
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+}
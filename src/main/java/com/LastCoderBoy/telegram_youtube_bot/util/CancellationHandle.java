@@ -0,0 +1,90 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import com.LastCoderBoy.telegram_youtube_bot.exception.TaskCancelledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cooperative cancellation for one task. Cancelling kills the process trees the task
+ * has started through {@link CommandExecutor} and interrupts the worker thread, so
+ * permit waits and blocking calls return straight away.
+ */
+@Slf4j
+public class CancellationHandle {
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private Thread worker;
+
+    /**
+     * Request cancellation
+     * @return false if the task was already cancelled
+     */
+    public boolean cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return false;
+        }
+        processes.forEach(CancellationHandle::destroyTree);
+        synchronized (this) {
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new TaskCancelledException("Task was cancelled");
+        }
+    }
+
+    /**
+     * Bind the calling thread as the one to interrupt on cancel
+     */
+    public synchronized void bindWorker() {
+        worker = Thread.currentThread();
+    }
+
+    /**
+     * Unbind the calling thread and clear any interrupt cancel() left on it,
+     * so a pooled thread doesn't carry it into its next task
+     */
+    public void unbindWorker() {
+        synchronized (this) {
+            if (worker != Thread.currentThread()) {
+                return;
+            }
+            worker = null;
+        }
+        Thread.interrupted();
+    }
+
+    void attach(Process process) {
+        processes.add(process);
+        // cancel() may have run between the caller's check and the process starting
+        if (isCancelled()) {
+            destroyTree(process);
+        }
+    }
+
+    void detach(Process process) {
+        processes.remove(process);
+    }
+
+    /**
+     * Forcibly kill a process and everything it spawned (yt-dlp hands off to ffmpeg for merging)
+     */
+    static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        log.debug("Killed process tree of pid {}", process.pid());
+    }
+}
@@ -0,0 +1,151 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe, count-based circuit breaker. Opens when the failure rate over the last
+ * {@code windowSize} calls reaches the threshold, refuses calls while open, then lets a few
+ * trial calls through: all of them succeeding closes it, any failure opens it again.
+ * <p>
+ * Callers take a permit with {@link #tryAcquire()} and report every permitted call with
+ * exactly one of {@link #recordSuccess()}, {@link #recordFailure()} or {@link #recordIgnored()}.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    private static final long HALF_OPEN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    // Ring buffer of the last outcomes, true for a failure
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialsInFlight;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openNanos, int halfOpenCalls) {
+        this.name = name;
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Try to take a permit for one call
+     * @return 0 if the call may go ahead, otherwise the nanos to wait before asking again
+     */
+    public synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            long remaining = openedAt + openNanos - System.nanoTime();
+            if (remaining > 0) {
+                return remaining;
+            }
+            state = State.HALF_OPEN;
+            trialsInFlight = 0;
+            trialsSucceeded = 0;
+            log.info("Circuit {} half-open, letting {} trial call(s) through", name, halfOpenCalls);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsInFlight + trialsSucceeded >= halfOpenCalls) {
+                return HALF_OPEN_WAIT_NANOS;
+            }
+            trialsInFlight++;
+        }
+        return 0;
+    }
+
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+            if (++trialsSucceeded >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+        // Already open: a late result from a call started before, nothing to add
+    }
+
+    /**
+     * Give the permit back without an outcome, e.g. the call was cancelled
+     */
+    public synchronized void recordIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        log.warn("Circuit {} opened ({} of the last {} calls failed), refusing calls for {} s",
+                name, failures, recorded, TimeUnit.NANOSECONDS.toSeconds(openNanos));
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+    }
+
+    private void close() {
+        log.info("Circuit {} closed", name);
+        state = State.CLOSED;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -1,49 +1,197 @@
 package com.LastCoderBoy.telegram_youtube_bot.util;
 
 
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
 public class CommandExecutor {
 
+    private static final int MAX_ERROR_OUTPUT_CHARS = 8 * 1024;
+    private static final MdcTaskDecorator MDC_PROPAGATION = new MdcTaskDecorator();
+
     public ProcessResult execute(String...  command) throws IOException, InterruptedException {
-        log.debug("Executing command: {}", String.join(" ", command));
+        if (log.isDebugEnabled()) {
+            log.debug("Executing command: {}", String.join(" ", command));
+        }
 
         ProcessBuilder processBuilder = new ProcessBuilder(command);
         processBuilder.redirectErrorStream(true);
 
-        Process process = processBuilder.start();
+        ConversionTask task = TaskContext.current();
+        CancellationHandle cancellation = task != null ? task.getCancellation() : null;
+        Process process = start(processBuilder, task, cancellation);
 
         StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-                log.debug("Command output: {}", line);
+        boolean debug = log.isDebugEnabled();
+        long lines = 0;
+        boolean finished;
+        try {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                    if (debug && LogSampler.shouldLog(++lines)) {
+                        log.debug("Command output [{}]: {}", lines, line);
+                    }
+                }
+            }
+
+            finished = process.waitFor(5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            throw interrupted(process, cancellation, e);
+        } finally {
+            if (cancellation != null) {
+                cancellation.detach(process);
             }
         }
 
-        boolean finished = process.waitFor(5, TimeUnit.MINUTES);
+        int exitCode = exitCode(process, finished, cancellation);
+        String outputStr = output.toString();
 
-        if (! finished) {
-            process.destroy();
-            throw new InterruptedException("Command execution timed out");
+        log.debug("Command exit code: {} after {} output lines", exitCode, lines);
+
+        return new ProcessResult(exitCode, outputStr);
+    }
+
+    /**
+     * Run a command and hand its stdout to the reader as a stream, without buffering it.
+     * Stderr is drained on a separate thread and only its tail is kept, for error messages.
+     * Whatever the reader leaves unread is discarded so the process can exit.
+     * <p>
+     * If the reader fails but the process also exits non-zero, the exit code wins:
+     * the result has a null value instead of the reader's exception.
+     */
+    public <T> StreamResult<T> executeStreaming(OutputReader<T> outputReader, String... command)
+            throws IOException, InterruptedException {
+        if (log.isDebugEnabled()) {
+            log.debug("Executing command (streaming): {}", String.join(" ", command));
         }
 
-        int exitCode = process.exitValue();
-        String outputStr = output.toString();
+        ConversionTask task = TaskContext.current();
+        CancellationHandle cancellation = task != null ? task.getCancellation() : null;
+        Process process = start(new ProcessBuilder(command), task, cancellation);
+
+        StringBuilder errorOutput = new StringBuilder();
+        Thread stderrDrainer = Thread.ofVirtual()
+                .name("stderr-" + process.pid())
+                .start(MDC_PROPAGATION.decorate(() -> drainErrors(process.getErrorStream(), errorOutput)));
+
+        T value = null;
+        IOException readFailure = null;
+        boolean finished;
+        try {
+            try (InputStream stdout = process.getInputStream()) {
+                try {
+                    // Readers may close what they get (a JsonParser does); stdout stays open for the drain below
+                    value = outputReader.read(CloseShieldInputStream.wrap(stdout));
+                } catch (IOException e) {
+                    readFailure = e;
+                }
+                stdout.transferTo(OutputStream.nullOutputStream());
+            }
+
+            finished = process.waitFor(5, TimeUnit.MINUTES);
+            stderrDrainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            throw interrupted(process, cancellation, e);
+        } finally {
+            if (cancellation != null) {
+                cancellation.detach(process);
+            }
+        }
 
+        int exitCode = exitCode(process, finished, cancellation);
         log.debug("Command exit code: {}", exitCode);
 
-        return new ProcessResult(exitCode, outputStr);
+        String errors;
+        synchronized (errorOutput) {
+            errors = errorOutput.toString();
+        }
+        if (exitCode == 0 && readFailure != null) {
+            throw readFailure;
+        }
+        return new StreamResult<>(exitCode, exitCode == 0 ? value : null, errors);
+    }
+
+    private Process start(ProcessBuilder processBuilder, ConversionTask task, CancellationHandle cancellation)
+            throws IOException {
+        if (cancellation != null) {
+            cancellation.throwIfCancelled();
+        }
+
+        Process process = processBuilder.start();
+
+        if (task != null && task.getTimeline() != null) {
+            task.getTimeline().recordProcess(process.pid());
+        }
+        if (cancellation != null) {
+            cancellation.attach(process);
+        }
+        return process;
+    }
+
+    private InterruptedException interrupted(Process process, CancellationHandle cancellation, InterruptedException e) {
+        CancellationHandle.destroyTree(process);
+        if (cancellation != null) {
+            cancellation.throwIfCancelled();
+        }
+        return e;
+    }
+
+    private int exitCode(Process process, boolean finished, CancellationHandle cancellation)
+            throws InterruptedException {
+        if (cancellation != null) {
+            // The process was killed under us; its exit code is meaningless
+            cancellation.throwIfCancelled();
+        }
+
+        if (! finished) {
+            CancellationHandle.destroyTree(process);
+            throw new InterruptedException("Command execution timed out");
+        }
+        return process.exitValue();
+    }
+
+    /**
+     * Read stderr to the end, keeping only the last {@link #MAX_ERROR_OUTPUT_CHARS}; lines are logged sampled
+     */
+    private static void drainErrors(InputStream stderr, StringBuilder errorOutput) {
+        boolean debug = log.isDebugEnabled();
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stderr, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (debug && LogSampler.shouldLog(++lines)) {
+                    log.debug("Command error output [{}]: {}", lines, line);
+                }
+                synchronized (errorOutput) {
+                    errorOutput.append(line).append("\n");
+                    if (errorOutput.length() > MAX_ERROR_OUTPUT_CHARS) {
+                        errorOutput.delete(0, errorOutput.length() - MAX_ERROR_OUTPUT_CHARS);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Stopped reading command error output: {}", e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    public interface OutputReader<T> {
+        T read(InputStream stdout) throws IOException;
     }
 
     public record ProcessResult(int exitCode, String output) {
@@ -51,4 +199,10 @@ public class CommandExecutor {
             return exitCode == 0;
         }
     }
+
+    public record StreamResult<T>(int exitCode, T value, String errorOutput) {
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+    }
 }
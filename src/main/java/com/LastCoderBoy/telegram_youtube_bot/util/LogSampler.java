@@ -0,0 +1,22 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+/**
+ * Picks the lines of a long, repetitive stream such as yt-dlp progress output that are
+ * worth logging: the first few in full, then one in every {@link #SAMPLE_EVERY}, so a
+ * chatty process costs a bounded number of log events.
+ */
+public final class LogSampler {
+
+    public static final int HEAD_LINES = 20;
+    public static final int SAMPLE_EVERY = 100;
+
+    private LogSampler() {
+    }
+
+    /**
+     * @param lineNumber 1 for the first line
+     */
+    public static boolean shouldLog(long lineNumber) {
+        return lineNumber <= HEAD_LINES || lineNumber % SAMPLE_EVERY == 0;
+    }
+}
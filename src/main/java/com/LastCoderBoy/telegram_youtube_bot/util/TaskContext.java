@@ -0,0 +1,38 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.ConversionTask;
+import org.slf4j.MDC;
+
+/**
+ * The task the current thread is working on, so lower layers such as
+ * {@link CommandExecutor} can attribute child processes to it. The task and chat ids
+ * are also put in the logging MDC, so every log line of the task carries them.
+ */
+public final class TaskContext {
+
+    public static final String TASK_ID_KEY = "taskId";
+    public static final String CHAT_ID_KEY = "chatId";
+
+    private static final ThreadLocal<ConversionTask> CURRENT = new ThreadLocal<>();
+
+    private TaskContext() {
+    }
+
+    public static void set(ConversionTask task) {
+        CURRENT.set(task);
+        MDC.put(TASK_ID_KEY, task.getTaskId());
+        if (task.getChatId() != null) {
+            MDC.put(CHAT_ID_KEY, task.getChatId().toString());
+        }
+    }
+
+    public static ConversionTask current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+        MDC.remove(TASK_ID_KEY);
+        MDC.remove(CHAT_ID_KEY);
+    }
+}
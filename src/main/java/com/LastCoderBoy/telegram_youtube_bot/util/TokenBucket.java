@@ -0,0 +1,75 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe token bucket. Tokens refill continuously at a fixed rate up to the capacity.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Try to take one token
+     * @return 0 if a token was taken, otherwise the nanos to wait before trying again
+     */
+    public synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (now - pausedUntil < 0) {
+            return pausedUntil - now;
+        }
+
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+
+    /**
+     * Block until a token is available
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Empty the bucket and refuse tokens for the given time (e.g. Telegram's retry_after)
+     */
+    public synchronized void pauseFor(long nanos) {
+        long until = System.nanoTime() + nanos;
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = 0;
+    }
+
+    /**
+     * Nanos since the bucket was last used
+     */
+    public synchronized long idleNanos() {
+        return System.nanoTime() - lastRefill;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }
+}
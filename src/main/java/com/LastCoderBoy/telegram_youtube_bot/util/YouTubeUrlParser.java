@@ -0,0 +1,232 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.YouTubeUrl;
+
+/**
+ * Single-pass parser for YouTube links. Works on indexes into the input, so
+ * checking a link allocates nothing and parsing one allocates only the IDs.
+ * <p>
+ * Accepts http(s) or no scheme; youtube.com with or without www., m. or music.;
+ * youtube-nocookie.com; youtu.be. Paths: /watch (v= anywhere in the query),
+ * /shorts/, /embed/, /v/, /live/ and youtu.be/. Reads list= and t= / start=
+ * from the query or the fragment.
+ */
+public final class YouTubeUrlParser {
+
+    public static final int VIDEO_ID_LENGTH = 11;
+
+    private static final int MAX_PLAYLIST_ID_LENGTH = 64;
+    private static final int MAX_START_SECONDS = 7 * 24 * 3600;
+
+    private static final String[] ID_PATHS = {"shorts/", "embed/", "v/", "live/"};
+
+    // Returned by isValid-style calls so they don't allocate
+    private static final YouTubeUrl VALID = new YouTubeUrl("", null, 0);
+
+    private YouTubeUrlParser() {
+    }
+
+    /**
+     * @return the parsed link, or null if the text is not a YouTube video link
+     */
+    public static YouTubeUrl parse(String text) {
+        return parse(text, true);
+    }
+
+    public static boolean isValid(String text) {
+        return parse(text, false) != null;
+    }
+
+    /**
+     * @return true if the text is exactly one video ID
+     */
+    public static boolean isVideoId(String text) {
+        return text != null && text.length() == VIDEO_ID_LENGTH && allIdChars(text, 0, VIDEO_ID_LENGTH);
+    }
+
+    private static YouTubeUrl parse(String text, boolean build) {
+        if (text == null) {
+            return null;
+        }
+        int end = text.length();
+        int i = 0;
+        while (i < end && Character.isWhitespace(text.charAt(i))) i++;
+        while (end > i && Character.isWhitespace(text.charAt(end - 1))) end--;
+
+        if (startsWith(text, i, end, "https://")) {
+            i += 8;
+        } else if (startsWith(text, i, end, "http://")) {
+            i += 7;
+        }
+
+        int hostEnd = i;
+        while (hostEnd < end && !isDelimiter(text.charAt(hostEnd))) hostEnd++;
+        int shortHost = matchHost(text, i, hostEnd);
+        if (shortHost < 0 || hostEnd >= end || text.charAt(hostEnd) != '/') {
+            return null;
+        }
+        i = hostEnd + 1;
+
+        // Path: either the ID itself or /watch with v= in the query
+        int idStart = -1;
+        if (shortHost == 1) {
+            idStart = i;
+        } else if (startsWith(text, i, end, "watch")
+                && (i + 5 == end || text.charAt(i + 5) == '?' || text.charAt(i + 5) == '#')) {
+            i += 5;
+        } else {
+            for (String path : ID_PATHS) {
+                if (startsWith(text, i, end, path)) {
+                    idStart = i + path.length();
+                    break;
+                }
+            }
+            if (idStart < 0) {
+                return null;
+            }
+        }
+
+        if (idStart >= 0) {
+            int idEnd = idStart + VIDEO_ID_LENGTH;
+            if (!isVideoId(text, idStart, end) || (idEnd < end && !isDelimiter(text.charAt(idEnd)))) {
+                return null;
+            }
+            i = idEnd;
+        }
+
+        // Query and fragment parameters, in any order
+        int videoIdStart = idStart;
+        int listStart = -1;
+        int listEnd = -1;
+        int startSeconds = 0;
+
+        while (i < end && text.charAt(i) != '?' && text.charAt(i) != '#') i++;
+        while (i < end) {
+            int keyStart = i + 1;
+            int paramEnd = keyStart;
+            while (paramEnd < end && !isParamSeparator(text.charAt(paramEnd))) paramEnd++;
+            int eq = keyStart;
+            while (eq < paramEnd && text.charAt(eq) != '=') eq++;
+
+            if (eq < paramEnd) {
+                int valueStart = eq + 1;
+                int keyLength = eq - keyStart;
+                int valueLength = paramEnd - valueStart;
+                if (keyLength == 1 && text.charAt(keyStart) == 'v') {
+                    if (videoIdStart < 0 && valueLength == VIDEO_ID_LENGTH && isVideoId(text, valueStart, paramEnd)) {
+                        videoIdStart = valueStart;
+                    }
+                } else if (keyLength == 4 && text.startsWith("list", keyStart)) {
+                    if (valueLength >= 2 && valueLength <= MAX_PLAYLIST_ID_LENGTH
+                            && allIdChars(text, valueStart, paramEnd)) {
+                        listStart = valueStart;
+                        listEnd = paramEnd;
+                    }
+                } else if ((keyLength == 1 && text.charAt(keyStart) == 't')
+                        || (keyLength == 5 && text.startsWith("start", keyStart))) {
+                    startSeconds = parseSeconds(text, valueStart, paramEnd);
+                }
+            }
+            i = paramEnd;
+        }
+
+        if (videoIdStart < 0) {
+            return null;
+        }
+        if (!build) {
+            return VALID;
+        }
+        return new YouTubeUrl(
+                text.substring(videoIdStart, videoIdStart + VIDEO_ID_LENGTH),
+                listStart >= 0 ? text.substring(listStart, listEnd) : null,
+                startSeconds
+        );
+    }
+
+    /**
+     * @return 0 for youtube.com hosts, 1 for youtu.be, -1 for anything else
+     */
+    private static int matchHost(String text, int start, int end) {
+        int i = start;
+        if (startsWith(text, i, end, "www.")) {
+            i += 4;
+        } else if (startsWith(text, i, end, "m.")) {
+            i += 2;
+        } else if (startsWith(text, i, end, "music.")) {
+            i += 6;
+        }
+        if (equals(text, i, end, "youtube.com") || equals(text, i, end, "youtube-nocookie.com")) {
+            return 0;
+        }
+        if (i == start || i == start + 4) {
+            if (equals(text, i, end, "youtu.be")) {
+                return 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Seconds from "90", "90s", "1m30s" or "1h2m3s"; 0 if malformed
+     */
+    private static int parseSeconds(String text, int start, int end) {
+        long total = 0;
+        long number = 0;
+        boolean digits = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = Math.min(number * 10 + (c - '0'), MAX_START_SECONDS);
+                digits = true;
+                continue;
+            }
+            if (!digits) {
+                return 0;
+            }
+            switch (c) {
+                case 'h', 'H' -> total += number * 3600;
+                case 'm', 'M' -> total += number * 60;
+                case 's', 'S' -> total += number;
+                default -> {
+                    return 0;
+                }
+            }
+            number = 0;
+            digits = false;
+        }
+        total += number;
+        return (int) Math.min(total, MAX_START_SECONDS);
+    }
+
+    private static boolean isVideoId(String text, int start, int end) {
+        return end - start >= VIDEO_ID_LENGTH && allIdChars(text, start, start + VIDEO_ID_LENGTH);
+    }
+
+    private static boolean allIdChars(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            boolean idChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_';
+            if (!idChar) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '/' || c == '?' || c == '#' || c == '&';
+    }
+
+    private static boolean isParamSeparator(char c) {
+        return c == '?' || c == '&' || c == '#';
+    }
+
+    private static boolean startsWith(String text, int start, int end, String prefix) {
+        return end - start >= prefix.length() && text.regionMatches(true, start, prefix, 0, prefix.length());
+    }
+
+    private static boolean equals(String text, int start, int end, String value) {
+        return end - start == value.length() && text.regionMatches(true, start, value, 0, value.length());
+    }
+}
@@ -0,0 +1,123 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.cache;
+
+import com.LastCoderBoy.telegram_youtube_bot.config.CacheProperties;
+import com.LastCoderBoy.telegram_youtube_bot.config.FileStorageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SourceAudioCacheTest {
+
+    private final Path root;
+    private final CacheProperties properties = new CacheProperties();
+    private final SourceAudioCache cache;
+
+    SourceAudioCacheTest() throws IOException {
+        root = Files.createTempDirectory("source-cache-test");
+        FileStorageProperties storage = new FileStorageProperties();
+        storage.setBasePath(root.toString());
+        cache = new SourceAudioCache(properties, storage, new SimpleMeterRegistry());
+        cache.init();
+    }
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+    }
+
+    @Test
+    void secondFormatReusesTheDownload() throws Exception {
+        assertNull(cache.acquireOrClaim("abc"), "first request downloads");
+        Path downloaded = download("task1_abc.m4a", 100);
+
+        SourceAudioCache.Lease first = cache.retain("abc", downloaded);
+        assertNotNull(first);
+        assertFalse(Files.exists(downloaded), "moved into the cache");
+        assertTrue(first.file().getFileName().toString().endsWith(".m4a"), "extension kept");
+
+        SourceAudioCache.Lease second = cache.acquireOrClaim("abc");
+        assertNotNull(second);
+        assertEquals(first.file(), second.file());
+        first.close();
+        second.close();
+        assertTrue(Files.exists(second.file()), "still cached after the encodes");
+    }
+
+    @Test
+    void concurrentRequestWaitsForTheDownloadInsteadOfStartingAnother() throws Exception {
+        assertNull(cache.acquireOrClaim("abc"));
+        CompletableFuture<SourceAudioCache.Lease> waiting = CompletableFuture.supplyAsync(this::acquire);
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertFalse(waiting.isDone(), "waits while the source is being downloaded");
+
+        try (SourceAudioCache.Lease lease = cache.retain("abc", download("task1_abc.m4a", 100))) {
+            SourceAudioCache.Lease shared = waiting.get(5, TimeUnit.SECONDS);
+            assertNotNull(shared);
+            assertEquals(lease.file(), shared.file());
+            shared.close();
+        }
+    }
+
+    @Test
+    void failedDownloadHandsTheClaimToAWaitingRequest() throws Exception {
+        assertNull(cache.acquireOrClaim("abc"));
+        CompletableFuture<SourceAudioCache.Lease> waiting = CompletableFuture.supplyAsync(this::acquire);
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        cache.abandon("abc");
+        assertNull(waiting.get(5, TimeUnit.SECONDS), "the waiting request downloads itself");
+    }
+
+    @Test
+    void evictedSourceIsDeletedOnlyAfterItsLastLease() throws Exception {
+        properties.setSourceMaxEntries(1);
+        assertNull(cache.acquireOrClaim("abc"));
+        SourceAudioCache.Lease old = cache.retain("abc", download("task1_abc.m4a", 100));
+
+        assertNull(cache.acquireOrClaim("xyz"));
+        cache.retain("xyz", download("task2_xyz.m4a", 100)).close();
+        assertEquals(1, cache.size());
+        assertTrue(Files.exists(old.file()), "still being encoded from");
+
+        old.close();
+        assertFalse(Files.exists(old.file()));
+        assertNull(cache.acquireOrClaim("abc"), "evicted, downloads again");
+    }
+
+    @Test
+    void sourceLargerThanTheCacheStaysWithTheTask() throws Exception {
+        properties.setSourceMaxBytes(50);
+        assertNull(cache.acquireOrClaim("abc"));
+        Path downloaded = download("task1_abc.m4a", 100);
+
+        assertNull(cache.retain("abc", downloaded));
+        assertTrue(Files.exists(downloaded));
+        assertNull(cache.acquireOrClaim("abc"), "claim was released");
+    }
+
+    private SourceAudioCache.Lease acquire() {
+        try {
+            return cache.acquireOrClaim("abc");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path download(String name, int bytes) throws IOException {
+        Path downloads = Files.createDirectories(root.resolve("downloads"));
+        return Files.write(downloads.resolve(name), new byte[bytes]);
+    }
+}
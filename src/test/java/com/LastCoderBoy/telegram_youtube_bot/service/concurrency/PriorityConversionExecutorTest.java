@@ -0,0 +1,172 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.concurrency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityConversionExecutorTest {
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PriorityConversionExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void cheapestWaitingJobStartsFirst() throws InterruptedException {
+        start(0, TimeUnit.SECONDS.toNanos(1));
+        blockWorker();
+
+        executor.execute("long", 7200, record("long"));
+        executor.execute("short", 180, record("short"));
+        executor.execute("medium", 1800, record("medium"));
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("last", 7200, done::countDown);
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS), "queue drained");
+        assertEquals(List.of("blocker", "short", "medium", "long"), started);
+    }
+
+    @Test
+    void withoutAgingWeightTheQueueIsFifo() throws InterruptedException {
+        start(0, 0);
+        blockWorker();
+
+        executor.execute("long", 7200, record("long"));
+        executor.execute("short", 180, record("short"));
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("last", 0, done::countDown);
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS), "queue drained");
+        assertEquals(List.of("blocker", "long", "short"), started);
+    }
+
+    @Test
+    void longJobGoesFirstOnceItHasWaitedLongEnough() throws InterruptedException {
+        // One second of audio is worth a microsecond of waiting
+        start(0, TimeUnit.MICROSECONDS.toNanos(1));
+        blockWorker();
+
+        executor.execute("long", 7200, record("long"));
+        TimeUnit.MILLISECONDS.sleep(20);
+        executor.execute("short", 180, record("short"));
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("last", 7200, done::countDown);
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS), "queue drained");
+        assertEquals(List.of("blocker", "long", "short"), started);
+    }
+
+    @Test
+    void fastLaneRunsShortJobsWhileGeneralWorkersAreBusy() throws InterruptedException {
+        start(1, TimeUnit.SECONDS.toNanos(1));
+        blockWorker();
+
+        CountDownLatch shortDone = new CountDownLatch(1);
+        executor.execute("long", 7200, record("long"));
+        executor.execute("short", 180, shortDone::countDown);
+
+        assertTrue(shortDone.await(5, TimeUnit.SECONDS), "short job ran on the fast lane");
+        assertEquals(1, executor.getQueueSize());
+        assertEquals(0, executor.getShortQueueSize());
+    }
+
+    @Test
+    void expeditedJobJumpsTheQueue() throws InterruptedException {
+        start(0, TimeUnit.SECONDS.toNanos(1));
+        blockWorker();
+
+        executor.execute("short", 180, record("short"));
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute("cancelled", 7200, () -> {
+            started.add("cancelled");
+            done.countDown();
+        });
+        assertTrue(executor.expedite("cancelled"));
+        assertFalse(executor.expedite("unknown"), "only queued jobs can be expedited");
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS), "expedited job ran");
+        assertEquals(List.of("blocker", "cancelled"), started.subList(0, 2));
+    }
+
+    @Test
+    void drainedJobsNeverStart() throws InterruptedException {
+        start(0, TimeUnit.SECONDS.toNanos(1));
+        blockWorker();
+
+        executor.execute("long", 7200, record("long"));
+        CompletableFuture<String> shortResult = executor.submitCompletable("short", 180, () -> "short");
+        CountDownLatch anonymousDone = new CountDownLatch(1);
+        executor.execute(anonymousDone::countDown);
+
+        IllegalStateException reason = new IllegalStateException("handed off");
+        assertEquals(List.of("short", "long"), executor.drainQueued(reason));
+        assertEquals(1, executor.getQueueSize(), "jobs without an id stay queued");
+        ExecutionException failure = assertThrows(ExecutionException.class, shortResult::get);
+        assertEquals(reason, failure.getCause(), "waiting callers learn why");
+
+        release.countDown();
+        assertTrue(anonymousDone.await(5, TimeUnit.SECONDS), "remaining job ran");
+        assertEquals(List.of("blocker"), started);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        start(0, 0);
+        executor.setQueueCapacity(1);
+        blockWorker();
+
+        executor.execute("queued", 60, record("queued"));
+        assertThrows(TaskRejectedException.class, () -> executor.execute("rejected", 60, record("rejected")));
+    }
+
+    private void start(int fastLaneWorkers, long agingNanosPerCost) {
+        executor = new PriorityConversionExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setFastLaneWorkers(fastLaneWorkers);
+        executor.setFastLaneMaxCost(600);
+        executor.setAgingNanosPerCost(agingNanosPerCost);
+        executor.setAwaitTerminationMillis(TimeUnit.SECONDS.toMillis(5));
+        executor.initialize();
+    }
+
+    // Occupy the only general worker until release is counted down
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute("blocker", 7200, () -> {
+            started.add("blocker");
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS), "worker picked up the blocker");
+    }
+
+    private Runnable record(String name) {
+        return () -> started.add(name);
+    }
+}
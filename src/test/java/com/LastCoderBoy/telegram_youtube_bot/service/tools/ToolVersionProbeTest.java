@@ -0,0 +1,30 @@
+package com.LastCoderBoy.telegram_youtube_bot.service.tools;
+
+import com.LastCoderBoy.telegram_youtube_bot.util.CommandExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ToolVersionProbeTest {
+
+    @Test
+    void unusablePathStillCompletesAndAllowsTheNextProbe() throws Exception {
+        ToolVersionProbe probe = new ToolVersionProbe(new CommandExecutor());
+        ReflectionTestUtils.setField(probe, "ytDlpPath", null);
+        ReflectionTestUtils.setField(probe, "ffmpegPath", "");
+
+        var first = probe.probe();
+        Map<String, ToolVersionProbe.ToolVersion> results = first.get(5, TimeUnit.SECONDS);
+        assertFalse(results.get(ToolVersionProbe.YT_DLP).isAvailable());
+        assertFalse(results.get(ToolVersionProbe.FFMPEG).isAvailable());
+        assertNotNull(probe.getProbedAt());
+
+        assertNotSame(first, probe.probe());
+    }
+}
@@ -0,0 +1,89 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, OPEN_NANOS, 2);
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        fail(3);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.tryAcquire());
+    }
+
+    @Test
+    void opensAtFailureRateAndRefusesCalls() {
+        succeed(2);
+        fail(2);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        long wait = breaker.tryAcquire();
+        assertTrue(wait > 0 && wait <= OPEN_NANOS, "wait " + wait);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        fail(3);
+        succeed(10);
+        fail(4);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenTrialsCloseTheCircuit() throws InterruptedException {
+        fail(4);
+        TimeUnit.NANOSECONDS.sleep(OPEN_NANOS * 2);
+
+        assertEquals(0, breaker.tryAcquire());
+        assertEquals(0, breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire() > 0, "only two trial calls");
+
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        fail(4);
+        TimeUnit.NANOSECONDS.sleep(OPEN_NANOS * 2);
+
+        assertEquals(0, breaker.tryAcquire());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void ignoredTrialFreesItsSlot() throws InterruptedException {
+        fail(4);
+        TimeUnit.NANOSECONDS.sleep(OPEN_NANOS * 2);
+
+        assertEquals(0, breaker.tryAcquire());
+        assertEquals(0, breaker.tryAcquire());
+        breaker.recordIgnored();
+        assertEquals(0, breaker.tryAcquire());
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertEquals(0, breaker.tryAcquire());
+            breaker.recordSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertEquals(0, breaker.tryAcquire());
+            breaker.recordFailure();
+        }
+    }
+}
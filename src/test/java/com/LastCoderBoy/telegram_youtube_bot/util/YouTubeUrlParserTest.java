@@ -0,0 +1,189 @@
+package com.LastCoderBoy.telegram_youtube_bot.util;
+
+import com.LastCoderBoy.telegram_youtube_bot.model.YouTubeUrl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class YouTubeUrlParserTest {
+
+    private static final long SEED = 0x5EED_2025L;
+    private static final int RUNS = 5_000;
+    private static final String ID_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_";
+
+    @ParameterizedTest
+    @CsvSource({
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "youtube.com/watch?v=dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "HTTPS://WWW.YOUTUBE.COM/watch?v=dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "https://m.youtube.com/watch?feature=share&v=dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "https://music.youtube.com/watch?v=dQw4w9WgXcQ&list=RDAMVMdQw4w9WgXcQ, dQw4w9WgXcQ, RDAMVMdQw4w9WgXcQ, 0",
+            "https://www.youtube.com/watch?list=PLx0sYbCqOb8TBPRdmBHs5Iftvv9TPboYG&v=dQw4w9WgXcQ&t=1m30s, dQw4w9WgXcQ, PLx0sYbCqOb8TBPRdmBHs5Iftvv9TPboYG, 90",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQ#t=42, dQw4w9WgXcQ, , 42",
+            "https://youtu.be/dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "https://youtu.be/dQw4w9WgXcQ?si=4kLx7Bq2mZ0c1a9P&t=1h2m3s, dQw4w9WgXcQ, , 3723",
+            "https://www.youtube.com/shorts/dQw4w9WgXcQ?feature=share, dQw4w9WgXcQ, , 0",
+            "https://www.youtube.com/embed/dQw4w9WgXcQ?start=15, dQw4w9WgXcQ, , 15",
+            "https://www.youtube-nocookie.com/embed/dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "https://www.youtube.com/v/dQw4w9WgXcQ, dQw4w9WgXcQ, , 0",
+            "https://www.youtube.com/live/dQw4w9WgXcQ?si=abc, dQw4w9WgXcQ, , 0",
+            "'  https://youtu.be/dQw4w9WgXcQ  ', dQw4w9WgXcQ, , 0"
+    })
+    void parsesKnownForms(String url, String videoId, String playlistId, int startSeconds) {
+        assertEquals(new YouTubeUrl(videoId, playlistId, startSeconds), YouTubeUrlParser.parse(url));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "hello, can you convert the song from yesterday please?",
+            "https://www.youtube.com/",
+            "https://www.youtube.com/watch",
+            "https://www.youtube.com/watch?v=",
+            "https://www.youtube.com/watch?v=dQw4w9WgXc",
+            "https://www.youtube.com/watch?v=dQw4w9WgXcQQ",
+            "https://www.youtube.com/watch? v=dQw4w9WgXcQ",
+            "https://www.youtube.com/playlist?list=PLx0sYbCqOb8TBPRdmBHs5Iftvv9TPboYG",
+            "https://youtu.be/dQw4w9WgXc!",
+            "https://m.youtu.be/dQw4w9WgXcQ",
+            "https://notyoutube.com/watch?v=dQw4w9WgXcQ",
+            "https://youtube.com.evil.example/watch?v=dQw4w9WgXcQ",
+            "ftp://youtube.com/watch?v=dQw4w9WgXcQ",
+            "https://vimeo.com/123456789"
+    })
+    void rejectsNonVideoLinks(String text) {
+        assertNull(YouTubeUrlParser.parse(text));
+        assertEquals(false, YouTubeUrlParser.isValid(text));
+    }
+
+    @Test
+    void rejectsNull() {
+        assertNull(YouTubeUrlParser.parse(null));
+    }
+
+    /**
+     * Every generated link, in any supported form and with parameters in any order, parses back to what built it
+     */
+    @Test
+    void generatedLinksRoundTrip() {
+        Random random = new Random(SEED);
+        for (int run = 0; run < RUNS; run++) {
+            String videoId = randomId(random, YouTubeUrlParser.VIDEO_ID_LENGTH);
+            String playlistId = random.nextBoolean() ? "PL" + randomId(random, 16 + random.nextInt(17)) : null;
+            int startSeconds = random.nextInt(4) == 0 ? random.nextInt(10_000) : 0;
+
+            String url = buildUrl(random, videoId, playlistId, startSeconds);
+            YouTubeUrl parsed = YouTubeUrlParser.parse(url);
+
+            assertNotNull(parsed, url);
+            assertEquals(videoId, parsed.videoId(), url);
+            assertEquals(playlistId, parsed.playlistId(), url);
+            assertEquals(startSeconds, parsed.startSeconds(), url);
+            assertEquals(videoId, YouTubeUrlParser.parse(parsed.canonicalUrl()).videoId(), url);
+        }
+    }
+
+    /**
+     * A video ID one character short, one too long or with a character outside [A-Za-z0-9_-] is never accepted
+     */
+    @Test
+    void mutatedIdsAreRejected() {
+        Random random = new Random(SEED);
+        for (int run = 0; run < RUNS; run++) {
+            String videoId = randomId(random, YouTubeUrlParser.VIDEO_ID_LENGTH);
+            String mutated = switch (random.nextInt(3)) {
+                case 0 -> videoId.substring(1);
+                case 1 -> videoId + ID_CHARS.charAt(random.nextInt(ID_CHARS.length()));
+                default -> {
+                    char[] chars = videoId.toCharArray();
+                    chars[random.nextInt(chars.length)] = "!$%*+.,;:@~'()".charAt(random.nextInt(14));
+                    yield new String(chars);
+                }
+            };
+
+            String url = buildUrl(random, mutated, null, 0);
+            assertNull(YouTubeUrlParser.parse(url), url);
+        }
+    }
+
+    /**
+     * Arbitrary URL-ish noise never throws, and parse and isValid always agree
+     */
+    @Test
+    void noiseNeverThrows() {
+        Random random = new Random(SEED);
+        String alphabet = ID_CHARS + "/?&#=.:% ";
+        String[] prefixes = {"", "https://", "youtu.be/", "https://www.youtube.com/watch?", "youtube.com/shorts/"};
+        for (int run = 0; run < RUNS; run++) {
+            StringBuilder text = new StringBuilder(prefixes[random.nextInt(prefixes.length)]);
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String input = text.toString();
+            assertEquals(YouTubeUrlParser.parse(input) != null, YouTubeUrlParser.isValid(input), input);
+        }
+    }
+
+    private static String buildUrl(Random random, String videoId, String playlistId, int startSeconds) {
+        String scheme = new String[]{"", "http://", "https://", "HTTPS://"}[random.nextInt(4)];
+
+        List<String> params = new ArrayList<>();
+        if (playlistId != null) {
+            params.add("list=" + playlistId);
+        }
+        if (startSeconds > 0) {
+            params.add(random.nextBoolean() ? "t=" + startSeconds : "t=" + formatHms(startSeconds));
+        }
+        if (random.nextBoolean()) {
+            params.add("si=" + randomId(random, 16));
+        }
+        if (random.nextBoolean()) {
+            params.add("feature=share");
+        }
+
+        return switch (random.nextInt(4)) {
+            case 0 -> {
+                params.add("v=" + videoId);
+                Collections.shuffle(params, random);
+                String host = new String[]{"youtube.com", "www.youtube.com", "m.youtube.com", "music.youtube.com",
+                        "WWW.YouTube.com"}[random.nextInt(5)];
+                yield scheme + host + "/watch?" + String.join("&", params);
+            }
+            case 1 -> scheme + (random.nextBoolean() ? "youtu.be/" : "www.youtu.be/") + videoId + query(random, params);
+            case 2 -> scheme + "www.youtube.com/shorts/" + videoId + query(random, params);
+            default -> scheme + "www.youtube.com/" + (random.nextBoolean() ? "embed/" : "live/") + videoId
+                    + query(random, params);
+        };
+    }
+
+    private static String query(Random random, List<String> params) {
+        Collections.shuffle(params, random);
+        return params.isEmpty() ? "" : "?" + String.join("&", params);
+    }
+
+    private static String formatHms(int seconds) {
+        int hours = seconds / 3600;
+        int minutes = (seconds % 3600) / 60;
+        int secs = seconds % 60;
+        return (hours > 0 ? hours + "h" : "") + (minutes > 0 ? minutes + "m" : "") + (secs > 0 ? secs + "s" : "");
+    }
+
+    private static String randomId(Random random, int length) {
+        StringBuilder id = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            id.append(ID_CHARS.charAt(random.nextInt(ID_CHARS.length())));
+        }
+        return id.toString();
+    }
+}